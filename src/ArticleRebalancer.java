@@ -0,0 +1,186 @@
+import org.apache.spark.Partitioner;
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.broadcast.Broadcast;
+import org.apache.spark.storage.StorageLevel;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/* Spreads the articles over partitions of roughly equal estimated NER cost before the
+ * heuristic runs. After the fetch stage each article is still in its feed's partition, so a
+ * feed with hundreds of long articles makes one task much slower than the rest.
+ *
+ * The cost of an article is estimated from the length of its title and text (the tokenizer
+ * and the heuristic walk every character). Only the costs go to the driver, which packs the
+ * articles with LPT (largest first, each into the least loaded partition); the articles
+ * themselves move once, through a shuffle keyed by their target partition. */
+class ArticleRebalancer {
+
+    // Fixed cost of an article besides its characters (entity lookups, list and map setup)
+    static final int ARTICLE_OVERHEAD = 64;
+
+    static int cost(String title, String text) {
+        int length = ((title != null) ? title.length() : 0) + ((text != null) ? text.length() : 0);
+        return ARTICLE_OVERHEAD + length;
+    }
+
+    /**
+     * The same items in the given number of partitions, balanced by estimated cost. The input
+     * is cached, since it is read once to collect the costs and once to move the items; the
+     * caller unpersists it once an action has run the shuffle.
+     *
+     * The cache spills to disk instead of dropping blocks: recomputing a partition means
+     * fetching its feeds again, which may not give back the same articles. If it happens
+     * anyway (a lost executor), the items the costs did not count go round-robin, so every
+     * item still lands in exactly one partition; only the balance suffers.
+     */
+    static <T> JavaRDD<T> rebalance(JavaRDD<T> items, Function<T, Integer> cost, int partitions) {
+        items.persist(StorageLevel.MEMORY_AND_DISK());
+
+        // Costs of each source partition, in iteration order
+        List<int[]> costs = items.mapPartitions(partition -> {
+            List<Integer> partitionCosts = new ArrayList<>();
+            while (partition.hasNext()) {
+                partitionCosts.add(cost.call(partition.next()));
+            }
+            int[] array = new int[partitionCosts.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = partitionCosts.get(i);
+            }
+            List<int[]> single = new ArrayList<>(1);
+            single.add(array);
+            return single.iterator();
+        }).collect();
+
+        int[][] targets = assign(costs, partitions);
+        System.out.println("Costo estimado de NER por partición: antes " + spread(loads(costs, null, costs.size()))
+            + ", después " + spread(loads(costs, targets, partitions)));
+
+        JavaSparkContext jsc = JavaSparkContext.fromSparkContext(items.context());
+        Broadcast<int[][]> assignment = jsc.broadcast(targets);
+        JavaRDD<Tuple2<Integer, T>> keyed = items.mapPartitionsWithIndex((index, partition) -> {
+            int[] partitionTargets = assignment.value()[index];
+            List<Tuple2<Integer, T>> withTarget = new ArrayList<>(partitionTargets.length);
+            for (int i = 0; partition.hasNext(); i++) {
+                int target = (i < partitionTargets.length) ? partitionTargets[i] : (index + i) % partitions;
+                withTarget.add(new Tuple2<>(target, partition.next()));
+            }
+            return withTarget.iterator();
+        }, true);
+        return JavaPairRDD.fromJavaRDD(keyed)
+            .partitionBy(new TargetPartitioner(partitions))
+            .values();
+    }
+
+    /* LPT: targets[p][i] is the partition of the i-th item of source partition p */
+    static int[][] assign(List<int[]> costs, int partitions) {
+        // One long per item: cost in the high half, position in the low half, sorted descending
+        int total = 0;
+        for (int[] partitionCosts : costs) {
+            total += partitionCosts.length;
+        }
+        long[] order = new long[total];
+        int[] sourceOf = new int[total];
+        int[] indexOf = new int[total];
+        int item = 0;
+        for (int p = 0; p < costs.size(); p++) {
+            for (int i = 0; i < costs.get(p).length; i++) {
+                order[item] = ((long) costs.get(p)[i] << 32) | item;
+                sourceOf[item] = p;
+                indexOf[item] = i;
+                item++;
+            }
+        }
+        Arrays.sort(order);
+
+        int[][] targets = new int[costs.size()][];
+        for (int p = 0; p < costs.size(); p++) {
+            targets[p] = new int[costs.get(p).length];
+        }
+        long[] loads = new long[partitions];
+        // Least loaded partition first; ties go to the lowest index
+        PriorityQueue<Integer> lightest = new PriorityQueue<>(partitions,
+            (a, b) -> (loads[a] != loads[b]) ? Long.compare(loads[a], loads[b]) : Integer.compare(a, b));
+        for (int p = 0; p < partitions; p++) {
+            lightest.add(p);
+        }
+        for (int k = order.length - 1; k >= 0; k--) {
+            int id = (int) order[k];
+            int target = lightest.poll();
+            loads[target] += order[k] >>> 32;
+            targets[sourceOf[id]][indexOf[id]] = target;
+            lightest.add(target);
+        }
+        return targets;
+    }
+
+    /* Estimated cost of each partition; with targets == null, of each source partition */
+    private static long[] loads(List<int[]> costs, int[][] targets, int partitions) {
+        long[] loads = new long[partitions];
+        for (int p = 0; p < costs.size(); p++) {
+            for (int i = 0; i < costs.get(p).length; i++) {
+                loads[(targets != null) ? targets[p][i] : p] += costs.get(p)[i];
+            }
+        }
+        return loads;
+    }
+
+    /* "N particiones, máx/media X, CV Y" (CV: standard deviation over the mean) */
+    static String spread(long[] values) {
+        if (values.length == 0) {
+            return "0 particiones";
+        }
+        double mean = 0;
+        long max = 0;
+        for (long value : values) {
+            mean += value;
+            max = Math.max(max, value);
+        }
+        mean /= values.length;
+        double variance = 0;
+        for (long value : values) {
+            variance += (value - mean) * (value - mean);
+        }
+        variance /= values.length;
+        double ratio = (mean > 0) ? max / mean : 0;
+        double cv = (mean > 0) ? Math.sqrt(variance) / mean : 0;
+        return String.format("%d particiones, máx/media %.2f, CV %.2f", values.length, ratio, cv);
+    }
+
+    /* Sends each record to the partition in its key */
+    static class TargetPartitioner extends Partitioner {
+        private static final long serialVersionUID = 1L;
+
+        private final int partitions;
+
+        TargetPartitioner(int partitions) {
+            this.partitions = partitions;
+        }
+
+        @Override
+        public int numPartitions() {
+            return partitions;
+        }
+
+        @Override
+        public int getPartition(Object key) {
+            return (Integer) key;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof TargetPartitioner && ((TargetPartitioner) other).partitions == partitions;
+        }
+
+        @Override
+        public int hashCode() {
+            return partitions;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.JavaSerializer;
+import org.apache.spark.serializer.KryoRegistrator;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+import feed.Article;
+import feed.Feed;
+import fetcher.FeedRequest;
+import namedEntity.NamedEntity;
+import namedEntity.categories.Category;
+import namedEntity.categories.DateEntity;
+import namedEntity.categories.Event;
+import namedEntity.categories.Organization;
+import namedEntity.categories.Other;
+import namedEntity.categories.Product;
+import namedEntity.categories.Person.LastName;
+import namedEntity.categories.Person.Name;
+import namedEntity.categories.Person.Person;
+import namedEntity.categories.Person.Title;
+import namedEntity.categories.Place.Address;
+import namedEntity.categories.Place.City;
+import namedEntity.categories.Place.Country;
+import namedEntity.categories.Place.OtherPlace;
+import namedEntity.categories.Place.Place;
+import namedEntity.heuristic.BuiltinDictionary;
+import namedEntity.heuristic.HeuristicConfig;
+import namedEntity.heuristic.MappedGazetteer;
+import namedEntity.topics.Culture;
+import namedEntity.topics.OtherTopic;
+import namedEntity.topics.Politics;
+import namedEntity.topics.Sports;
+import namedEntity.topics.Topic;
+
+/* Registers every class SparkFeedFetcher ships through Kryo, so that records carry a small
+ * class id instead of the class name (spark.kryo.registrationRequired makes a missing one an
+ * error instead of a silent fallback).
+ *
+ * The feed and entity model gets hand-written serializers that only write the fields that
+ * define each value. Categories and topics are interned again when read, so a shuffle still
+ * leaves one instance per value; within a record Kryo's reference tracking already writes
+ * repeated instances as back-references. */
+public class FeedKryoRegistrator implements KryoRegistrator {
+
+    @Override
+    public void registerClasses(Kryo kryo) {
+        // Fetch requests, shipped to the executors inside the fetch tasks
+        kryo.register(FeedRequest.class, new FeedRequestSerializer());
+
+        // Model classes
+        kryo.register(Feed.class, new FeedSerializer());
+        kryo.register(Article.class, new ArticleSerializer());
+        kryo.register(NamedEntity.class, new NamedEntitySerializer());
+
+        kryo.register(Other.class, new AtomCategorySerializer<>(Other::new));
+        kryo.register(Organization.class, new AtomCategorySerializer<>(Organization::new));
+        kryo.register(Product.class, new AtomCategorySerializer<>(Product::new));
+        kryo.register(Event.class, new AtomCategorySerializer<>(Event::new));
+        kryo.register(OtherPlace.class, new AtomCategorySerializer<>(OtherPlace::new));
+        kryo.register(DateEntity.class, new AtomCategorySerializer<>(atom -> new DateEntity(atom, atom)));
+        kryo.register(Person.class, new PersonSerializer());
+        kryo.register(Place.class, new PlaceSerializer());
+
+        kryo.register(Topic.class, new TopicSerializer());
+        kryo.register(Politics.class, new DescriptionTopicSerializer<>(Politics::new));
+        kryo.register(Culture.class, new DescriptionTopicSerializer<>(Culture::new));
+        kryo.register(Sports.class, new DescriptionTopicSerializer<>(Sports::new));
+        kryo.register(OtherTopic.class, new DescriptionTopicSerializer<>(OtherTopic::new));
+
+        // Heuristic settings travel as a broadcast. Only the gazetteer path is written: each
+        // executor maps the file itself. The dictionaries go through Java serialization so
+        // their readResolve (builtin singleton, re-mapping the gazetteer file) still applies
+        kryo.register(HeuristicConfig.class, new HeuristicConfigSerializer());
+        kryo.register(BuiltinDictionary.class, new JavaSerializer());
+        kryo.register(MappedGazetteer.class, new JavaSerializer());
+
+        // SparkFeedFetcher's own records
+        kryo.register(SparkFeedFetcher.TopEntities.class);
+        kryo.register(SparkFeedFetcher.ArticleRow.class);
+        kryo.register(SparkFeedFetcher.EntityRow.class);
+        kryo.register(ArrayList.class);
+        // Target partition of every article, broadcast by ArticleRebalancer
+        kryo.register(int[][].class);
+    }
+
+    static class FeedRequestSerializer extends Serializer<FeedRequest> {
+        FeedRequestSerializer() {
+            super(false, true);
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, FeedRequest request) {
+            output.writeString(request.getUrl());
+            output.writeString(request.getUrlType());
+        }
+
+        @Override
+        public FeedRequest read(Kryo kryo, Input input, Class<FeedRequest> type) {
+            return new FeedRequest(input.readString(), input.readString());
+        }
+    }
+
+    static class FeedSerializer extends Serializer<Feed> {
+        @Override
+        public void write(Kryo kryo, Output output, Feed feed) {
+            output.writeString(feed.getSiteName());
+            List<Article> articles = feed.getArticleList();
+            output.writeVarInt(articles.size(), true);
+            for (Article article : articles) {
+                kryo.writeObject(output, article);
+            }
+        }
+
+        @Override
+        public Feed read(Kryo kryo, Input input, Class<Feed> type) {
+            Feed feed = new Feed(input.readString());
+            int size = input.readVarInt(true);
+            for (int i = 0; i < size; i++) {
+                feed.addArticle(kryo.readObject(input, Article.class));
+            }
+            return feed;
+        }
+    }
+
+    static class ArticleSerializer extends Serializer<Article> {
+        @Override
+        public void write(Kryo kryo, Output output, Article article) {
+            output.writeString(article.getTitle());
+            output.writeString(article.getText());
+            output.writeString(article.getLink());
+            Date date = article.getPublicationDate();
+            output.writeBoolean(date != null);
+            if (date != null) {
+                output.writeVarLong(date.getTime(), false);
+            }
+            List<NamedEntity> entities = article.getNamedEntityList();
+            output.writeVarInt(entities.size(), true);
+            for (NamedEntity entity : entities) {
+                kryo.writeObject(output, entity);
+            }
+        }
+
+        @Override
+        public Article read(Kryo kryo, Input input, Class<Article> type) {
+            String title = input.readString();
+            String text = input.readString();
+            String link = input.readString();
+            Date date = input.readBoolean() ? new Date(input.readVarLong(false)) : null;
+            Article article = new Article(title, text, date, link);
+            int size = input.readVarInt(true);
+            for (int i = 0; i < size; i++) {
+                article.getNamedEntityList().add(kryo.readObject(input, NamedEntity.class));
+            }
+            return article;
+        }
+    }
+
+    static class NamedEntitySerializer extends Serializer<NamedEntity> {
+        @Override
+        public void write(Kryo kryo, Output output, NamedEntity entity) {
+            output.writeString(entity.getName());
+            output.writeVarInt(entity.getFrequency(), true);
+            kryo.writeClassAndObject(output, entity.getCategory());
+            kryo.writeClassAndObject(output, entity.getTopic());
+        }
+
+        @Override
+        public NamedEntity read(Kryo kryo, Input input, Class<NamedEntity> type) {
+            String name = input.readString();
+            int frequency = input.readVarInt(true);
+            Category category = (Category) kryo.readClassAndObject(input);
+            Topic topic = (Topic) kryo.readClassAndObject(input);
+            return new NamedEntity(name, frequency, category, topic);
+        }
+    }
+
+    /* Categories whose whole value is the text they were created with */
+    static class AtomCategorySerializer<C extends Category> extends Serializer<C> {
+        private final Function<String, C> factory;
+
+        AtomCategorySerializer(Function<String, C> factory) {
+            super(false, true);
+            this.factory = factory;
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, C category) {
+            output.writeString(category.getAtom());
+        }
+
+        @Override
+        public C read(Kryo kryo, Input input, Class<C> type) {
+            return Category.intern(factory.apply(input.readString()));
+        }
+    }
+
+    // One bit per part that is present, so a missing part and a part with a null value stay apart
+    static class PersonSerializer extends Serializer<Person> {
+        PersonSerializer() {
+            super(false, true);
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, Person person) {
+            LastName lastName = person.getLastName();
+            Name name = person.getName();
+            Title title = person.getTitle();
+            output.writeByte((lastName != null ? 1 : 0) | (name != null ? 2 : 0) | (title != null ? 4 : 0));
+            if (lastName != null) {
+                output.writeString(lastName.getLastName());
+            }
+            if (name != null) {
+                output.writeString(name.getName());
+            }
+            if (title != null) {
+                output.writeString(title.getOrigen());
+                output.writeString(title.getCanonical());
+            }
+        }
+
+        @Override
+        public Person read(Kryo kryo, Input input, Class<Person> type) {
+            int parts = input.readByte();
+            LastName lastName = ((parts & 1) != 0) ? new LastName(input.readString()) : null;
+            Name name = ((parts & 2) != 0) ? new Name(input.readString()) : null;
+            Title title = ((parts & 4) != 0) ? new Title(input.readString(), input.readString()) : null;
+            return Category.intern(new Person(lastName, name, title));
+        }
+    }
+
+    static class PlaceSerializer extends Serializer<Place> {
+        PlaceSerializer() {
+            super(false, true);
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, Place place) {
+            Address address = place.getAddress();
+            City city = place.getCity();
+            Country country = place.getCountry();
+            output.writeString(place.getAtom());
+            output.writeByte((address != null ? 1 : 0) | (city != null ? 2 : 0) | (country != null ? 4 : 0));
+            if (address != null) {
+                output.writeString(address.getCanonical());
+            }
+            if (city != null) {
+                output.writeString(city.getCanonical());
+            }
+            if (country != null) {
+                output.writeString(country.getCanonical());
+            }
+        }
+
+        @Override
+        public Place read(Kryo kryo, Input input, Class<Place> type) {
+            String canonical = input.readString();
+            int parts = input.readByte();
+            Address address = ((parts & 1) != 0) ? new Address(input.readString()) : null;
+            City city = ((parts & 2) != 0) ? new City(input.readString()) : null;
+            Country country = ((parts & 4) != 0) ? new Country(input.readString()) : null;
+            return Category.intern(new Place(canonical, address, city, country));
+        }
+    }
+
+    static class TopicSerializer extends Serializer<Topic> {
+        TopicSerializer() {
+            super(false, true);
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, Topic topic) {
+            output.writeString(topic.getTopicName());
+            output.writeString(topic.getDescription());
+        }
+
+        @Override
+        public Topic read(Kryo kryo, Input input, Class<Topic> type) {
+            return Topic.intern(new Topic(input.readString(), input.readString()));
+        }
+    }
+
+    /* Topic subclasses are built from their own description (getDescription), which their
+     * constructor turns into the full one */
+    static class DescriptionTopicSerializer<T extends Topic> extends Serializer<T> {
+        private final Function<String, T> factory;
+
+        DescriptionTopicSerializer(Function<String, T> factory) {
+            super(false, true);
+            this.factory = factory;
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, T topic) {
+            output.writeString(topic.getDescription());
+        }
+
+        @Override
+        public T read(Kryo kryo, Input input, Class<T> type) {
+            return Topic.intern(factory.apply(input.readString()));
+        }
+    }
+
+    static class HeuristicConfigSerializer extends Serializer<HeuristicConfig> {
+        HeuristicConfigSerializer() {
+            super(false, true);
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, HeuristicConfig config) {
+            output.writeString(config.getType());
+            output.writeLong(config.getSeed());
+            output.writeString(config.getGazetteer());
+            output.writeVarInt(config.getCacheSize(), true);
+        }
+
+        @Override
+        public HeuristicConfig read(Kryo kryo, Input input, Class<HeuristicConfig> type) {
+            return new HeuristicConfig(input.readString(), input.readLong(), input.readString(), input.readVarInt(true));
+        }
+    }
+}
@@ -1,25 +1,21 @@
 import feed.Article;
 import feed.Feed;
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-import parser.RedditParser;
-import parser.RssParser;
+import fetcher.ConcurrentFeedFetcher;
+import fetcher.FeedRequest;
 import parser.SubscriptionParser;
-import subscription.SingleSubscription;
 import subscription.Subscription;
+import httpRequest.FeedCache;
 import httpRequest.HttpRequester;
+import httpRequest.TransferStats;
+import namedEntity.EntityAggregator;
 import namedEntity.NamedEntity;
+import namedEntity.heuristic.CachingHeuristic;
 import namedEntity.heuristic.Heuristic;
-import namedEntity.heuristic.QuickHeuristic;
-import namedEntity.heuristic.RandomHeuristic;
+import namedEntity.heuristic.Heuristics;
 
 public class FeedReaderMain {
 
@@ -42,38 +38,16 @@ public class FeedReaderMain {
 			 * Llamar al constructor de Feed
 			 */
 			try {
-				SubscriptionParser subParser = new SubscriptionParser("./config/subscriptions.json");
+				SubscriptionParser subParser = SubscriptionParser.fromSystemProperties();
 				Subscription allSubscriptions = subParser.getSubscriptions();
-				HttpRequester http_requester = new HttpRequester();
-
-				for (SingleSubscription currentSubscription : allSubscriptions.getSubscriptionsList()) {
-					String urlType = currentSubscription.getUrlType();
-					String baseUrl = currentSubscription.getUrl();
-					List<String> params = currentSubscription.getUrlParams();
-
-					for (String param : params) {
-						String finalUrl = baseUrl.replaceAll("%s", param);
-
-						if ("reddit".equalsIgnoreCase(urlType)) {
-							String pageData = http_requester.getFeedReddit(finalUrl);
-							InputStream jsonStream = new ByteArrayInputStream(
-									pageData.getBytes(StandardCharsets.UTF_8));
-							RedditParser parser = new RedditParser(jsonStream, finalUrl);
-							Feed feed = parser.parseFeed();
-							collectedFeeds.add(feed);
-
-						} else if ("rss".equalsIgnoreCase(urlType)) {
-							String pageData = http_requester.getFeedRss(finalUrl);
-							InputStream xmlStream = new ByteArrayInputStream(pageData.getBytes(StandardCharsets.UTF_8));
-							RssParser rssParser = new RssParser(xmlStream, finalUrl);
-							Feed feed = rssParser.parseFeed();
-							collectedFeeds.add(feed);
-
-						} else {
-							System.out.println("    Tipo de suscripción desconocido: " + urlType);
-						}
-					}
-				}
+				HttpRequester http_requester = new HttpRequester(FeedCache.fromSystemProperties());
+
+				// Cada feed se descarga y parsea en su propia tarea; el orden de collectedFeeds
+				// sigue siendo el del archivo de suscripciones
+				ConcurrentFeedFetcher fetcher = new ConcurrentFeedFetcher(http_requester,
+						ConcurrentFeedFetcher.parallelismFromSystemProperties());
+				collectedFeeds.addAll(fetcher.fetchAll(FeedRequest.expand(allSubscriptions)));
+				TransferStats.printSummary(http_requester.getTransferStats(), Boolean.getBoolean("feedreader.verbose"));
 			} catch (Exception e) {
 				e.printStackTrace();
 			}
@@ -98,49 +72,38 @@ public class FeedReaderMain {
 			 * LLamar al prettyPrint de la tabla de entidades nombradas del feed.
 			 */
 			Heuristic heu;
-			Map<String, NamedEntity> aggregatedEntities = new HashMap<>();
-			if (args[0].equals("-rh")) {
-				heu = new RandomHeuristic();}
-				else if (args[0].equals("-qh")) {
-				heu = new QuickHeuristic();}
-			else {
-				System.err.println("Comando invalido");
-				printHelp();
+			EntityAggregator aggregatedEntities = new EntityAggregator();
+			try {
+				// -rh o -qh, con el diccionario de feedreader.gazetteer si esta definida
+				heu = Heuristics.fromSystemProperties(args[0]);
+			} catch (IOException e) {
+				System.err.println("No se pudo abrir el gazetteer: " + e.getMessage());
 				return;
 			}
 				// recorro la lista de feeds y computo heristicas
 				for (Feed feed : collectedFeeds) {
 					for (Article article : feed.getArticleList()) {
 						article.computeNamedEntities(heu);
-						// Agregar a la tabla global
+						// Agregar a la tabla global, sumando las frecuencias por (nombre, categoría)
                         for (NamedEntity neFromArticle : article.getNamedEntityList()) {
-                            String key = neFromArticle.getName() + "::" + neFromArticle.getCategory();
-                            NamedEntity globalEntity = aggregatedEntities.get(key);
-                            if (globalEntity == null) {
-                                // Crear nueva entidad para la tabla agregada, copiando la frecuencia del artículo
-                                aggregatedEntities.put(key, new NamedEntity(neFromArticle.getName(), neFromArticle.getFrequency(), neFromArticle.getCategory(), neFromArticle.getTopic()));
-                            } else {
-                                globalEntity.setFrequency(globalEntity.getFrequency() + neFromArticle.getFrequency());
-                            }
+                            aggregatedEntities.add(neFromArticle);
                         }
 
 
 					}
 			
 			} 
+			if (heu instanceof CachingHeuristic) {
+				System.out.println(((CachingHeuristic) heu).statsSummary());
+			}
 			
 			// Imprimir la tabla de entidades agregadas
             System.out.println("\n--- Tabla Agregada de Entidades Nombradas (Global) ---");
             if (aggregatedEntities.isEmpty()) {
                 System.out.println("No se encontraron entidades nombradas con la heurística seleccionada.");
             } else {
-                List<NamedEntity> sortedEntities = new ArrayList<>(aggregatedEntities.values());
-                Collections.sort(sortedEntities, new Comparator<NamedEntity>() {
-                    @Override
-                    public int compare(NamedEntity e1, NamedEntity e2) {
-                        return Integer.compare(e2.getFrequency(), e1.getFrequency()); // Orden descendente
-                    }
-                });
+                // Orden descendente por frecuencia
+                List<NamedEntity> sortedEntities = aggregatedEntities.sortedByFrequency();
 
                 for (NamedEntity ne : sortedEntities) {
 					// Topic topic = ne.getTopic();
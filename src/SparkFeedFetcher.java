@@ -1,32 +1,58 @@
 import scala.Tuple2;
+import scala.Tuple3;
+import org.apache.spark.SparkEnv;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.MapPartitionsFunction;
+import org.apache.spark.broadcast.Broadcast;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Encoders;
+import org.apache.spark.sql.Row;
 import org.apache.spark.sql.SparkSession;
+import org.apache.spark.storage.StorageLevel;
+import org.apache.spark.util.CollectionAccumulator;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
 import java.io.Serializable;
-import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import feed.Article;
 import feed.Feed;
+import fetcher.ConcurrentFeedFetcher;
+import fetcher.FeedRequest;
+import httpRequest.FeedCache;
+import httpRequest.HostScheduler;
 import httpRequest.HttpRequester;
+import namedEntity.EntityAggregator;
 import namedEntity.NamedEntity;
+import namedEntity.categories.Category;
+import namedEntity.heuristic.CachingHeuristic;
 import namedEntity.heuristic.Heuristic;
-import namedEntity.heuristic.QuickHeuristic;
-import namedEntity.heuristic.RandomHeuristic;
-import parser.RssParser;
+import namedEntity.heuristic.HeuristicConfig;
 import parser.SubscriptionParser;
-import subscription.SingleSubscription;
 import subscription.Subscription;
 
 public class SparkFeedFetcher {
     
+    // Entities shown at the end unless feedreader.topK says otherwise
+    static final int DEFAULT_TOP_K = 100;
+    
+    // Pipeline used for the entities: "rdd" (Java objects) or "dataset" (Tungsten rows),
+    // unless feedreader.sparkMode says otherwise
+    static final String DEFAULT_MODE = "rdd";
+    
+    // Feeds in flight at once in each fetch partition (one partition per core), unless
+    // feedreader.fetchConcurrency says otherwise
+    static final int DEFAULT_FETCH_CONCURRENCY = 16;
+    
     public static void main(String[] args) {
         // Suppress Spark's verbose INFO logs for a cleaner console output
         Logger.getLogger("org").setLevel(Level.ERROR);
@@ -39,6 +65,10 @@ public class SparkFeedFetcher {
             .appName("FeedFetcher")
             .master("local[*]")
             .config("spark.serializer", "org.apache.spark.serializer.KryoSerializer")
+            // Compact serializers for the feed and entity model; an unregistered class fails
+            // instead of silently writing its full name into every record
+            .config("spark.kryo.registrator", FeedKryoRegistrator.class.getName())
+            .config("spark.kryo.registrationRequired", "true")
             .getOrCreate();
         
         try {
@@ -52,99 +82,448 @@ public class SparkFeedFetcher {
     }
     
     private static void processFeeds(SparkSession spark, String[] args) throws Exception {
-        SubscriptionParser subParser = new SubscriptionParser("./config/subscriptions.json");
+        SubscriptionParser subParser = SubscriptionParser.fromSystemProperties();
         Subscription allSubscriptions = subParser.getSubscriptions();
         
-        List<String> allUrls = expandUrls(allSubscriptions);
+        List<FeedRequest> rssRequests = rssRequests(allSubscriptions);
         
-        JavaRDD<Feed> feedsRDD = downloadAndParseFeeds(spark, allUrls);
+        JavaRDD<Feed> feedsRDD = downloadAndParseFeeds(spark, rssRequests);
         
-        processNamedEntitiesDistributed(feedsRDD, args);
+        String mode = System.getProperty("feedreader.sparkMode", DEFAULT_MODE);
+        if (mode.equals("dataset")) {
+            processNamedEntitiesDataset(spark, feedsRDD, args);
+        } else if (mode.equals("rdd")) {
+            processNamedEntitiesDistributed(feedsRDD, args);
+        } else {
+            throw new IllegalArgumentException("feedreader.sparkMode debe ser rdd o dataset: " + mode);
+        }
     }
     
-    private static List<String> expandUrls(Subscription subscription) {
-        List<String> allUrls = new ArrayList<>();
-        
-        for (SingleSubscription sub : subscription.getSubscriptionsList()) {
-            String baseUrl = sub.getUrl();
-            List<String> params = sub.getUrlParams();
-            
-            for (String param : params) {
-                String finalUrl = baseUrl.replaceAll("%s", param);
-                allUrls.add(finalUrl);
+    // Only RSS subscriptions are processed here; the others are reported and skipped
+    private static List<FeedRequest> rssRequests(Subscription subscription) {
+        List<FeedRequest> rssRequests = new ArrayList<>();
+        for (FeedRequest request : FeedRequest.expand(subscription)) {
+            if ("rss".equalsIgnoreCase(request.getUrlType())) {
+                rssRequests.add(request);
+            } else {
+                System.out.println("Saltando " + request.getUrl() + " (tipo " + request.getUrlType() + ")");
             }
         }
-        return allUrls;
+        return rssRequests;
     }
     
-    private static JavaRDD<Feed> downloadAndParseFeeds(SparkSession spark, List<String> urls) {
+    private static JavaRDD<Feed> downloadAndParseFeeds(SparkSession spark, List<FeedRequest> requests) {
         JavaSparkContext jsc = new JavaSparkContext(spark.sparkContext());
-        JavaRDD<String> urlsRDD = jsc.parallelize(urls, urls.size());
+        if (requests.isEmpty()) {
+            return jsc.emptyRDD();
+        }
+        // Fetching is I/O-bound: instead of one task per URL, each core gets one partition that
+        // keeps fetchConcurrency requests in flight
+        int partitions = Math.min(requests.size(), jsc.defaultParallelism());
+        int fetchConcurrency = Integer.getInteger("feedreader.fetchConcurrency", DEFAULT_FETCH_CONCURRENCY);
+        JavaRDD<FeedRequest> requestsRDD = jsc.parallelize(requests, partitions);
 
-        JavaRDD<Feed> feedsRDD = urlsRDD.map(url -> {
-            try {
-                HttpRequester requester = new HttpRequester();
-                String content = requester.getFeedRss(url);
-                
-                InputStream xmlStream = new ByteArrayInputStream(
-                    content.getBytes(StandardCharsets.UTF_8)
-                );
-                RssParser parser = new RssParser(xmlStream, url);
-                return parser.parseFeed();
-            } catch (Exception e) {
-                // Return an empty feed on error, which will be filtered out
-                return new Feed("ERROR_" + url);
-            }
+        JavaRDD<Feed> feedsRDD = requestsRDD.mapPartitions(partition -> {
+            List<FeedRequest> partitionRequests = new ArrayList<>();
+            partition.forEachRemaining(partitionRequests::add);
+            // One requester per partition (the HttpClient underneath is shared by the whole JVM)
+            // and the JVM-wide scheduler, so the per-host limits cover every task on this
+            // executor. Failed feeds are reported and left out
+            HttpRequester requester = new HttpRequester(FeedCache.fromSystemProperties());
+            ConcurrentFeedFetcher fetcher =
+                new ConcurrentFeedFetcher(requester, fetchConcurrency, HostScheduler.shared());
+            return fetcher.fetchAll(partitionRequests).iterator();
         });
         
-        return feedsRDD.filter(feed -> 
-            !feed.getSiteName().startsWith("ERROR_") && 
-            feed.getNumberOfArticles() > 0
-        );
+        return feedsRDD.filter(feed -> feed.getNumberOfArticles() > 0);
     }
     
     private static void processNamedEntitiesDistributed(JavaRDD<Feed> feedsRDD, String[] args) {
         String heuristicType = (args.length > 0) ? args[0] : "-qh";
+        // The heuristic settings (type, seed, gazetteer path) travel once per executor as a
+        // broadcast; the dictionaries themselves are static or memory-mapped on each executor
+        JavaSparkContext jsc = JavaSparkContext.fromSparkContext(feedsRDD.context());
+        Broadcast<HeuristicConfig> heuristicConfig =
+            jsc.broadcast(HeuristicConfig.fromSystemProperties(heuristicType));
         
         JavaRDD<Article> articlesRDD = feedsRDD.flatMap(feed -> 
             feed.getArticleList().iterator()
         );
+        JavaRDD<Article> balancedRDD =
+            balanceForNer(articlesRDD, article -> ArticleRebalancer.cost(article.getTitle(), article.getText()));
         
         // The .count() call was removed to avoid an unnecessary job and extra logs
         
-        JavaRDD<NamedEntity> entitiesRDD = articlesRDD.flatMap(article -> {
-            Heuristic heuristic;
-            if ("-rh".equals(heuristicType)) {
-                heuristic = new RandomHeuristic();
-            } else {
-                heuristic = new QuickHeuristic();
+        // One heuristic per partition instead of one per article. Each partition also adds up
+        // its own entities by (name, category) with their real frequencies, so only one record
+        // per distinct entity and partition reaches the shuffle
+        CollectionAccumulator<Long> nerMillis = jsc.sc().collectionAccumulator("nerMillis");
+        CollectionAccumulator<Tuple3<String, Long, String>> cacheStats = jsc.sc().collectionAccumulator("heuristicCache");
+        JavaPairRDD<Tuple2<String, Category>, Integer> entitiesRDD = balancedRDD.mapPartitionsToPair(articles -> {
+            Heuristic heuristic = heuristicConfig.value().create();
+            long start = System.nanoTime();
+            EntityAggregator partitionCounts = new EntityAggregator();
+            while (articles.hasNext()) {
+                Article article = articles.next();
+                article.computeNamedEntities(heuristic);
+                for (NamedEntity entity : article.getNamedEntityList()) {
+                    partitionCounts.add(entity);
+                }
             }
-            
-            article.computeNamedEntities(heuristic);
-            return article.getNamedEntityList().iterator();
+            List<Tuple2<Tuple2<String, Category>, Integer>> counts = new ArrayList<>(partitionCounts.size());
+            for (NamedEntity entity : partitionCounts.entities()) {
+                counts.add(new Tuple2<>(new Tuple2<>(entity.getName(), entity.getCategory()), entity.getFrequency()));
+            }
+            nerMillis.add((System.nanoTime() - start) / 1_000_000);
+            reportCacheStats(heuristic, cacheStats);
+            return counts.iterator();
         });
         
         countAndDisplayEntities(entitiesRDD);
+        // The rebalancing shuffle has run: the articles cached for it are no longer needed
+        articlesRDD.unpersist();
+        printNerTimes(nerMillis);
+        printCacheStats(cacheStats);
     }
     
-    private static void countAndDisplayEntities(JavaRDD<NamedEntity> entitiesRDD) {
-        JavaPairRDD<String, Integer> entityPairs = entitiesRDD.mapToPair(entity -> 
-            new Tuple2<>(entity.getName(), 1)
-        );
+    // Unless feedreader.rebalance=false, the articles are packed into one partition per core
+    // of about the same estimated cost (see ArticleRebalancer). With a single core there is
+    // nothing to balance
+    private static <T> JavaRDD<T> balanceForNer(JavaRDD<T> articles, Function<T, Integer> cost) {
+        int partitions = articles.context().defaultParallelism();
+        if ("false".equals(System.getProperty("feedreader.rebalance")) || partitions < 2) {
+            return articles;
+        }
+        return ArticleRebalancer.rebalance(articles, cost, partitions);
+    }
+    
+    // Time each partition spent in the heuristic: its spread is what the rebalancing is for
+    private static void printNerTimes(CollectionAccumulator<Long> nerMillis) {
+        List<Long> millis = nerMillis.value();
+        long[] values = new long[millis.size()];
+        long total = 0;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = millis.get(i);
+            total += values[i];
+        }
+        long mean = (values.length > 0) ? total / values.length : 0;
+        System.out.println("\nTiempo de NER por partición: media " + mean + " ms, " + ArticleRebalancer.spread(values));
+    }
+    
+    // With feedreader.heuristicCache each executor keeps one CachingHeuristic for all its tasks
+    // (see HeuristicConfig.create). Its counters are cumulative, so every partition reports the
+    // executor, the lookups so far and the summary; the latest report of each executor covers
+    // the tasks that finished before it
+    private static void reportCacheStats(Heuristic heuristic, CollectionAccumulator<Tuple3<String, Long, String>> cacheStats) {
+        if (heuristic instanceof CachingHeuristic) {
+            CachingHeuristic cache = (CachingHeuristic) heuristic;
+            long lookups = cache.getHitCount() + cache.getMissCount();
+            cacheStats.add(new Tuple3<>(SparkEnv.get().executorId(), lookups, cache.statsSummary()));
+        }
+    }
+    
+    private static void printCacheStats(CollectionAccumulator<Tuple3<String, Long, String>> cacheStats) {
+        Map<String, Tuple3<String, Long, String>> latest = new TreeMap<>();
+        for (Tuple3<String, Long, String> report : cacheStats.value()) {
+            Tuple3<String, Long, String> previous = latest.get(report._1());
+            if (previous == null || report._2() > previous._2()) {
+                latest.put(report._1(), report);
+            }
+        }
+        for (Tuple3<String, Long, String> report : latest.values()) {
+            System.out.println("Executor " + report._1() + ": " + report._3());
+        }
+    }
+    
+    private static void processNamedEntitiesDataset(SparkSession spark, JavaRDD<Feed> feedsRDD, String[] args) {
+        String heuristicType = (args.length > 0) ? args[0] : "-qh";
+        JavaSparkContext jsc = JavaSparkContext.fromSparkContext(feedsRDD.context());
+        Broadcast<HeuristicConfig> heuristicConfig =
+            jsc.broadcast(HeuristicConfig.fromSystemProperties(heuristicType));
         
-        JavaPairRDD<String, Integer> entityCounts = entityPairs.reduceByKey((a, b) -> a + b);
+        // Articles leave the Java object graph here: from now on they are flat rows in Spark's
+        // binary format, and only the heuristic step turns them back into Article objects
+        JavaRDD<ArticleRow> articleRows = feedsRDD.flatMap(feed -> {
+            List<ArticleRow> rows = new ArrayList<>(feed.getNumberOfArticles());
+            for (Article article : feed.getArticleList()) {
+                rows.add(ArticleRow.of(feed.getSiteName(), article));
+            }
+            return rows.iterator();
+        });
+        JavaRDD<ArticleRow> balancedRows =
+            balanceForNer(articleRows, row -> ArticleRebalancer.cost(row.getTitle(), row.getText()));
+        Dataset<ArticleRow> articles = spark.createDataset(balancedRows.rdd(), Encoders.bean(ArticleRow.class));
         
-        List<Tuple2<String, Integer>> results = entityCounts
-            .mapToPair(tuple -> new Tuple2<>(tuple._2(), tuple._1()))
-            .sortByKey(false)
-            .mapToPair(tuple -> new Tuple2<>(tuple._2(), tuple._1()))
-            .collect();
+        // One row per entity and article, with its frequency in that article. Adding them up per
+        // partition is left to the partial aggregation of groupBy, which runs on binary rows
+        CollectionAccumulator<Long> nerMillis = jsc.sc().collectionAccumulator("nerMillis");
+        CollectionAccumulator<Tuple3<String, Long, String>> cacheStats = jsc.sc().collectionAccumulator("heuristicCache");
+        Dataset<EntityRow> occurrences = articles.mapPartitions((MapPartitionsFunction<ArticleRow, EntityRow>) rows -> {
+            Heuristic heuristic = heuristicConfig.value().create();
+            long start = System.nanoTime();
+            List<EntityRow> entities = new ArrayList<>();
+            while (rows.hasNext()) {
+                Article article = rows.next().toArticle();
+                article.computeNamedEntities(heuristic);
+                for (NamedEntity entity : article.getNamedEntityList()) {
+                    entities.add(EntityRow.of(entity));
+                }
+            }
+            nerMillis.add((System.nanoTime() - start) / 1_000_000);
+            reportCacheStats(heuristic, cacheStats);
+            return entities.iterator();
+        }, Encoders.bean(EntityRow.class));
+        
+        countAndDisplayEntities(occurrences);
+        articleRows.unpersist();
+        printNerTimes(nerMillis);
+        printCacheStats(cacheStats);
+    }
+    
+    private static void countAndDisplayEntities(Dataset<EntityRow> occurrences) {
+        int topK = Integer.getInteger("feedreader.topK", DEFAULT_TOP_K);
+        
+        // Entities are told apart by the whole category value, as in the RDD path: two
+        // categories with the same name but different data are counted separately
+        Dataset<Row> counts = occurrences
+            .groupBy("name", "category", "atom", "details")
+            .sum("frequency")
+            .withColumnRenamed("sum(frequency)", "count")
+            .persist(StorageLevel.MEMORY_ONLY());
+        
+        // Same order as TopEntities: most frequent first, ties by name and then by category
+        long distinct = counts.count();
+        List<Row> ranking = counts
+            .orderBy(counts.col("count").desc(), counts.col("name"), counts.col("category"))
+            .limit(topK)
+            .collectAsList();
+        counts.unpersist();
         
         System.out.println("\n=== ENTIDADES NOMBRADAS ENCONTRADAS ===");
-        System.out.println("Total entidades únicas: " + results.size());
+        System.out.println("Total entidades únicas: " + distinct);
+        System.out.println("Mostrando las " + ranking.size() + " más frecuentes");
+        
+        for (Row result : ranking) {
+            System.out.println(result.getString(0) + " (" + result.getString(1) + "): " + result.getLong(4));
+        }
+    }
+    
+    private static void countAndDisplayEntities(JavaPairRDD<Tuple2<String, Category>, Integer> entitiesRDD) {
+        int topK = Integer.getInteger("feedreader.topK", DEFAULT_TOP_K);
+        
+        // A single job adds up the partition counts and keeps, per task, only the distinct
+        // count and the best topK entities: the driver never receives the whole ranking
+        TopEntities top = entitiesRDD
+            .reduceByKey(Integer::sum)
+            .treeAggregate(new TopEntities(topK), TopEntities::add, TopEntities::merge);
+        
+        System.out.println("\n=== ENTIDADES NOMBRADAS ENCONTRADAS ===");
+        System.out.println("Total entidades únicas: " + top.getDistinct());
+        System.out.println("Mostrando las " + top.getRanking().size() + " más frecuentes");
+        
+        for (Tuple2<Tuple2<String, Category>, Integer> result : top.getRanking()) {
+            System.out.println(result._1()._1() + " (" + result._1()._2().getCategoryName() + "): " + result._2());
+        }
+    }
+    
+    /* Distinct entity count plus the topK most frequent ones, kept sorted (most frequent first,
+     * ties by name). A plain list instead of a PriorityQueue because Kryo rebuilds queues
+     * without their comparator. */
+    static class TopEntities implements Serializable {
+        private static final long serialVersionUID = 1L;
+        
+        private final int k;
+        private long distinct = 0;
+        private final ArrayList<Tuple2<Tuple2<String, Category>, Integer>> ranking = new ArrayList<>();
+        
+        TopEntities(int k) {
+            this.k = k;
+        }
+        
+        TopEntities add(Tuple2<Tuple2<String, Category>, Integer> entity) {
+            distinct++;
+            offer(entity);
+            return this;
+        }
+        
+        TopEntities merge(TopEntities other) {
+            distinct += other.distinct;
+            for (Tuple2<Tuple2<String, Category>, Integer> entity : other.ranking) {
+                offer(entity);
+            }
+            return this;
+        }
+        
+        private void offer(Tuple2<Tuple2<String, Category>, Integer> entity) {
+            if (ranking.size() == k && (k == 0 || compare(entity, ranking.get(k - 1)) >= 0)) {
+                return;
+            }
+            int position = ranking.size();
+            while (position > 0 && compare(entity, ranking.get(position - 1)) < 0) {
+                position--;
+            }
+            ranking.add(position, entity);
+            if (ranking.size() > k) {
+                ranking.remove(k);
+            }
+        }
+        
+        private static int compare(Tuple2<Tuple2<String, Category>, Integer> a, Tuple2<Tuple2<String, Category>, Integer> b) {
+            int byCount = Integer.compare(b._2(), a._2());
+            if (byCount != 0) {
+                return byCount;
+            }
+            int byName = a._1()._1().compareTo(b._1()._1());
+            if (byName != 0) {
+                return byName;
+            }
+            return a._1()._2().getCategoryName().compareTo(b._1()._2().getCategoryName());
+        }
+        
+        long getDistinct() {
+            return distinct;
+        }
+        
+        List<Tuple2<Tuple2<String, Category>, Integer>> getRanking() {
+            return ranking;
+        }
+    }
+    
+    /* An article as a flat row for the Dataset pipeline: Encoders.bean needs a public class with
+     * a no-argument constructor and getters/setters for every column. */
+    public static class ArticleRow implements Serializable {
+        private static final long serialVersionUID = 1L;
+        
+        private String feed;
+        private String title;
+        private String text;
+        private String link;
+        private Timestamp publicationDate;
+        
+        public ArticleRow() {
+        }
+        
+        static ArticleRow of(String feed, Article article) {
+            ArticleRow row = new ArticleRow();
+            row.feed = feed;
+            row.title = article.getTitle();
+            row.text = article.getText();
+            row.link = article.getLink();
+            Date date = article.getPublicationDate();
+            row.publicationDate = (date != null) ? new Timestamp(date.getTime()) : null;
+            return row;
+        }
+        
+        Article toArticle() {
+            Date date = (publicationDate != null) ? new Date(publicationDate.getTime()) : null;
+            return new Article(title, text, date, link);
+        }
+        
+        public String getFeed() {
+            return feed;
+        }
+        
+        public void setFeed(String feed) {
+            this.feed = feed;
+        }
+        
+        public String getTitle() {
+            return title;
+        }
+        
+        public void setTitle(String title) {
+            this.title = title;
+        }
+        
+        public String getText() {
+            return text;
+        }
+        
+        public void setText(String text) {
+            this.text = text;
+        }
+        
+        public String getLink() {
+            return link;
+        }
+        
+        public void setLink(String link) {
+            this.link = link;
+        }
+        
+        public Timestamp getPublicationDate() {
+            return publicationDate;
+        }
+        
+        public void setPublicationDate(Timestamp publicationDate) {
+            this.publicationDate = publicationDate;
+        }
+    }
+    
+    /* An entity found in one article: its name, its category and how many times it appears in
+     * that article. The category is flattened into the columns that define its value: the name
+     * of its class, its atom and its details as text (see Category.detailValues). */
+    public static class EntityRow implements Serializable {
+        private static final long serialVersionUID = 1L;
+        
+        private String name;
+        private String category;
+        private String atom;
+        private List<String> details;
+        private int frequency;
+        
+        public EntityRow() {
+        }
+        
+        static EntityRow of(NamedEntity entity) {
+            Category category = entity.getCategory();
+            EntityRow row = new EntityRow();
+            row.name = entity.getName();
+            row.category = category.getCategoryName();
+            row.atom = category.getAtom();
+            row.details = category.detailValues();
+            row.frequency = entity.getFrequency();
+            return row;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+        
+        public String getCategory() {
+            return category;
+        }
+        
+        public void setCategory(String category) {
+            this.category = category;
+        }
+        
+        public String getAtom() {
+            return atom;
+        }
+        
+        public void setAtom(String atom) {
+            this.atom = atom;
+        }
+        
+        public List<String> getDetails() {
+            return details;
+        }
+        
+        public void setDetails(List<String> details) {
+            this.details = details;
+        }
+        
+        public int getFrequency() {
+            return frequency;
+        }
         
-        for (Tuple2<String, Integer> result : results) {
-            System.out.println(result._1() + ": " + result._2());
+        public void setFrequency(int frequency) {
+            this.frequency = frequency;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,148 @@
+package benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.executor.TaskMetrics;
+import org.apache.spark.scheduler.SparkListener;
+import org.apache.spark.scheduler.SparkListenerJobEnd;
+import org.apache.spark.scheduler.SparkListenerTaskEnd;
+import org.apache.spark.storage.StorageLevel;
+
+import feed.Article;
+import feed.Feed;
+import namedEntity.NamedEntity;
+import namedEntity.categories.Category;
+import namedEntity.heuristic.Heuristic;
+import namedEntity.heuristic.HeuristicConfig;
+import parser.RssParser;
+import scala.Tuple2;
+
+/* Mide cuántos bytes escribe Spark en el shuffle con Kryo sin registrar clases (cada registro
+ * lleva el nombre completo de su clase y los campos van con los serializadores genéricos) y con
+ * FeedKryoRegistrator, que es lo que usa SparkFeedFetcher.
+ *
+ * Los feeds se generan con MockFeedServer.generateFeed y se parsean en el driver, así que no
+ * hace falta el servidor ni la red. Con cada configuración se mezclan:
+ *   - articulos: los artículos con sus entidades ya calculadas, redistribuidos con repartition();
+ *   - entidades: los pares ((nombre, categoría), 1) de cada entidad, sumados con reduceByKey().
+ *
+ * Uso: KryoShuffleBenchmark [feeds] [artículos por feed] [palabras por artículo]
+ * */
+public class KryoShuffleBenchmark {
+
+	private static final String REGISTRATOR = "FeedKryoRegistrator";
+
+	/* Suma los bytes de shuffle que escribe cada tarea */
+	private static final class ShuffleBytesListener extends SparkListener {
+		final AtomicLong bytesWritten = new AtomicLong();
+		final AtomicInteger jobsEnded = new AtomicInteger();
+
+		@Override
+		public void onTaskEnd(SparkListenerTaskEnd taskEnd) {
+			TaskMetrics metrics = taskEnd.taskMetrics();
+			if (metrics != null) {
+				bytesWritten.addAndGet(metrics.shuffleWriteMetrics().bytesWritten());
+			}
+		}
+
+		@Override
+		public void onJobEnd(SparkListenerJobEnd jobEnd) {
+			jobsEnded.incrementAndGet();
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		int feeds = (args.length > 0) ? Integer.parseInt(args[0]) : 32;
+		int items = (args.length > 1) ? Integer.parseInt(args[1]) : 200;
+		int words = (args.length > 2) ? Integer.parseInt(args[2]) : 80;
+
+		Logger.getLogger("org").setLevel(Level.ERROR);
+
+		List<Feed> parsed = new ArrayList<>(feeds);
+		for (int i = 0; i < feeds; i++) {
+			String name = "kryo-" + i;
+			byte[] xml = MockFeedServer.generateFeed(name, items, words);
+			parsed.add(new RssParser(new ByteArrayInputStream(xml), "UTF-8", name).parseFeed());
+		}
+		System.out.println("Feeds: " + feeds + ", artículos: " + (feeds * items) + ", palabras por artículo: " + words);
+
+		long[] plain = run(parsed, false);
+		long[] registered = run(parsed, true);
+
+		System.out.printf("%-12s %18s %18s %10s%n", "Shuffle", "Kryo sin registro", "Kryo registrado", "Ahorro");
+		String[] workloads = { "articulos", "entidades" };
+		for (int i = 0; i < workloads.length; i++) {
+			System.out.printf("%-12s %18d %18d %9.1f%%%n", workloads[i], plain[i], registered[i],
+					100.0 * (plain[i] - registered[i]) / Math.max(1, plain[i]));
+		}
+	}
+
+	/* Bytes de shuffle de cada carga: { articulos, entidades } */
+	private static long[] run(List<Feed> feeds, boolean registered) throws InterruptedException {
+		SparkConf conf = new SparkConf()
+				.setAppName("KryoShuffleBenchmark")
+				.setMaster("local[*]")
+				.set("spark.serializer", "org.apache.spark.serializer.KryoSerializer")
+				.set("spark.ui.enabled", "false");
+		if (registered) {
+			conf.set("spark.kryo.registrator", REGISTRATOR)
+				.set("spark.kryo.registrationRequired", "true");
+		}
+
+		try (JavaSparkContext jsc = new JavaSparkContext(conf)) {
+			ShuffleBytesListener listener = new ShuffleBytesListener();
+			jsc.sc().addSparkListener(listener);
+			int partitions = jsc.defaultParallelism();
+			HeuristicConfig config = HeuristicConfig.fromSystemProperties("-qh");
+
+			// Las entidades se calculan una sola vez y quedan en memoria sin serializar
+			JavaRDD<Article> articles = jsc.parallelize(feeds, partitions)
+				.flatMap(feed -> feed.getArticleList().iterator())
+				.mapPartitions(partition -> {
+					Heuristic heuristic = config.create();
+					List<Article> computed = new ArrayList<>();
+					while (partition.hasNext()) {
+						Article article = partition.next();
+						article.computeNamedEntities(heuristic);
+						computed.add(article);
+					}
+					return computed.iterator();
+				})
+				.persist(StorageLevel.MEMORY_ONLY());
+			articles.count();
+
+			long articleBytes = measure(listener, () -> articles.repartition(partitions).count());
+			long entityBytes = measure(listener, () -> articles
+				.flatMapToPair(article -> {
+					List<Tuple2<Tuple2<String, Category>, Integer>> pairs = new ArrayList<>();
+					for (NamedEntity entity : article.getNamedEntityList()) {
+						pairs.add(new Tuple2<>(new Tuple2<>(entity.getName(), entity.getCategory()), 1));
+					}
+					return pairs.iterator();
+				})
+				.reduceByKey(Integer::sum)
+				.count());
+			return new long[] { articleBytes, entityBytes };
+		}
+	}
+
+	// Corre un job y espera a que el listener reciba todos sus eventos (llegan en otro hilo)
+	private static long measure(ShuffleBytesListener listener, Runnable job) throws InterruptedException {
+		long before = listener.bytesWritten.get();
+		int jobs = listener.jobsEnded.get();
+		job.run();
+		for (int i = 0; i < 100 && listener.jobsEnded.get() <= jobs; i++) {
+			Thread.sleep(50);
+		}
+		return listener.bytesWritten.get() - before;
+	}
+}
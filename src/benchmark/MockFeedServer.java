@@ -0,0 +1,333 @@
+package benchmark;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/* Servidor HTTP local que imita a los servidores de noticias, para medir el pipeline de descarga
+ * sin depender de la red ni de los feeds reales.
+ *
+ * Rutas:
+ *   /fixtures/<archivo>      sirve un archivo de test_files (ejemplo.xml, reddit.json)
+ *   /generated/<nombre>.xml  genera un feed RSS; siempre el mismo para el mismo nombre y tamaño
+ *                            (items=cantidad de artículos, words=palabras por descripción)
+ *
+ * Parámetros de query que valen para cualquier ruta:
+ *   latency=ms, jitter=ms     espera antes de responder (latency + un extra al azar hasta jitter)
+ *   slow=ms, slowEvery=n      uno de cada n pedidos a la ruta espera slow ms más (cola de latencia)
+ *   drip=bytes, dripDelay=ms  manda el cuerpo de a pedazos de drip bytes con dripDelay entre ellos
+ *   fail=status, failEvery=n  responde con ese status uno de cada n pedidos a la ruta (n=1: siempre)
+ *   retryAfter=segundos       agrega Retry-After a las respuestas fallidas
+ *   etag=0                    no manda ETag/Last-Modified (por defecto se responde 304 si coinciden)
+ *   gzip=0                    no comprime aunque el cliente mande Accept-Encoding: gzip
+ *
+ * Uso: MockFeedServer [puerto] [directorio de fixtures]
+ * */
+public class MockFeedServer {
+
+	public static final int DEFAULT_PORT = 8765;
+	public static final String DEFAULT_FIXTURES = "test_files";
+
+	// Palabras con las que se arman los artículos generados: entidades que conocen las heurísticas
+	// mezcladas con texto común, para que el conteo de entidades tenga trabajo parecido al real
+	private static final String[] ENTITIES = {
+		"Joe Biden", "Donald Trump", "Elon Musk", "Tim Cook", "Satya Nadella", "Sundar Pichai",
+		"Mark Zuckerberg", "Jensen Huang", "Sam Altman", "New York City", "London", "Paris", "Berlin",
+		"Beijing", "Tokyo", "Silicon Valley", "Wall Street", "Taiwan", "Apple", "Microsoft", "Google",
+		"Amazon", "Bitcoin", "Olympics", "World Cup", "Monday", "Friday", "January", "October"
+	};
+	private static final String[] WORDS = {
+		"the", "market", "said", "on", "new", "report", "shares", "after", "company", "with", "for",
+		"growth", "policy", "analysts", "expected", "a", "year", "record", "deal", "announced", "in",
+		"investors", "its", "plan", "and", "chips", "data", "will", "launch", "by", "officials", "week"
+	};
+
+	private final Path fixtures;
+	private final HttpServer server;
+	private final Date startedAt = new Date();
+	private final Map<String, byte[]> generated = new ConcurrentHashMap<>();
+	private final Map<String, AtomicInteger> hitsPerRoute = new ConcurrentHashMap<>();
+	private final Map<Integer, AtomicLong> responsesPerStatus = new ConcurrentHashMap<>();
+	private final AtomicLong bytesSent = new AtomicLong();
+
+	public MockFeedServer(int port, Path fixtures) throws IOException {
+		this.fixtures = fixtures;
+		this.server = HttpServer.create(new InetSocketAddress(port), 0);
+		// Los handlers duermen para simular latencia: un hilo por pedido en vuelo
+		ExecutorService pool = Executors.newCachedThreadPool();
+		this.server.setExecutor(pool);
+		this.server.createContext("/", this::handle);
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	public void stop() {
+		server.stop(0);
+		((ExecutorService) server.getExecutor()).shutdownNow();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			URI uri = exchange.getRequestURI();
+			Map<String, String> params = queryParams(uri.getRawQuery());
+			String route = uri.getPath() + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+			int hit = hitsPerRoute.computeIfAbsent(route, r -> new AtomicInteger()).incrementAndGet();
+
+			int delay = intParam(params, "latency", 0) + jitter(intParam(params, "jitter", 0));
+			int slowEvery = intParam(params, "slowEvery", 0);
+			if (slowEvery > 0 && hit % slowEvery == 0) {
+				delay += intParam(params, "slow", 0);
+			}
+			sleep(delay);
+
+			int fail = intParam(params, "fail", 0);
+			if (fail > 0 && hit % Math.max(1, intParam(params, "failEvery", 1)) == 0) {
+				if (params.containsKey("retryAfter")) {
+					exchange.getResponseHeaders().set("Retry-After", params.get("retryAfter"));
+				}
+				sendEmpty(exchange, fail);
+				return;
+			}
+
+			byte[] body;
+			String contentType;
+			String path = uri.getPath();
+			if (path.startsWith("/fixtures/")) {
+				body = fixture(path.substring("/fixtures/".length()));
+				contentType = path.endsWith(".json") ? "application/json" : "application/rss+xml";
+			} else if (path.startsWith("/generated/")) {
+				String name = path.substring("/generated/".length()).replaceFirst("\\.xml$", "");
+				int items = intParam(params, "items", 50);
+				int words = intParam(params, "words", 60);
+				body = generated.computeIfAbsent(name + "|" + items + "|" + words,
+						key -> generateFeed(name, items, words));
+				contentType = "application/rss+xml";
+			} else {
+				body = null;
+				contentType = null;
+			}
+			if (body == null) {
+				sendEmpty(exchange, 404);
+				return;
+			}
+
+			Headers headers = exchange.getResponseHeaders();
+			headers.set("Content-Type", contentType + "; charset=UTF-8");
+			if (!"0".equals(params.get("etag"))) {
+				String etag = etagOf(body);
+				headers.set("ETag", etag);
+				headers.set("Last-Modified", httpDate(startedAt));
+				if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+					sendEmpty(exchange, 304);
+					return;
+				}
+			}
+			String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+			if (acceptEncoding != null && acceptEncoding.contains("gzip") && !"0".equals(params.get("gzip"))) {
+				body = gzip(body);
+				headers.set("Content-Encoding", "gzip");
+			}
+			send(exchange, body, intParam(params, "drip", 0), intParam(params, "dripDelay", 0));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void send(HttpExchange exchange, byte[] body, int drip, int dripDelay)
+			throws IOException, InterruptedException {
+		count(200);
+		if (drip <= 0) {
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		} else {
+			exchange.sendResponseHeaders(200, 0); // Sin largo: se manda chunked
+			try (OutputStream out = exchange.getResponseBody()) {
+				for (int off = 0; off < body.length; off += drip) {
+					out.write(body, off, Math.min(drip, body.length - off));
+					out.flush();
+					sleep(dripDelay);
+				}
+			}
+		}
+		bytesSent.addAndGet(body.length);
+	}
+
+	private void sendEmpty(HttpExchange exchange, int status) throws IOException {
+		count(status);
+		exchange.sendResponseHeaders(status, -1);
+	}
+
+	private void count(int status) {
+		responsesPerStatus.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+	}
+
+	/* Resumen de lo servido, para comparar con lo que reportan los clientes */
+	public String summary() {
+		StringBuilder sb = new StringBuilder("MockFeedServer: ");
+		sb.append(bytesSent.get()).append(" bytes enviados");
+		for (Map.Entry<Integer, AtomicLong> e : new TreeMap<>(responsesPerStatus).entrySet()) {
+			sb.append(", ").append(e.getValue().get()).append(" x ").append(e.getKey());
+		}
+		return sb.toString();
+	}
+
+	private byte[] fixture(String name) throws IOException {
+		Path file = fixtures.resolve(name).normalize();
+		if (!file.startsWith(fixtures.normalize())) {
+			return null; // No se sale del directorio de fixtures
+		}
+		try {
+			return Files.readAllBytes(file);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Genera un feed RSS de items artículos. El contenido depende solo de los parámetros, así dos
+	 * corridas del benchmark parsean exactamente lo mismo.
+	 */
+	static byte[] generateFeed(String name, int items, int wordsPerItem) {
+		Random random = new Random(name.hashCode() * 31L + items);
+		SimpleDateFormat rfc822 = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss Z", Locale.ENGLISH);
+		rfc822.setTimeZone(TimeZone.getTimeZone("UTC"));
+		long baseTime = 1717200000000L; // 2024-06-01
+
+		StringBuilder xml = new StringBuilder(items * (wordsPerItem * 8 + 300));
+		xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<rss version=\"2.0\">\n<channel>\n");
+		xml.append("<title>Mock ").append(escape(name)).append("</title>\n");
+		xml.append("<link>http://localhost/").append(escape(name)).append("</link>\n");
+		xml.append("<description>Feed generado por MockFeedServer</description>\n");
+		for (int i = 0; i < items; i++) {
+			xml.append("<item>\n<title>").append(sentence(random, 6 + random.nextInt(6))).append("</title>\n");
+			xml.append("<link>http://localhost/").append(escape(name)).append('/').append(i).append("</link>\n");
+			xml.append("<guid>").append(escape(name)).append('-').append(i).append("</guid>\n");
+			xml.append("<pubDate>").append(rfc822.format(new Date(baseTime - i * 3600_000L))).append("</pubDate>\n");
+			xml.append("<description>").append(sentence(random, wordsPerItem)).append("</description>\n</item>\n");
+		}
+		xml.append("</channel>\n</rss>\n");
+		return xml.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String sentence(Random random, int words) {
+		StringBuilder sb = new StringBuilder();
+		for (int w = 0; w < words; w++) {
+			if (w > 0) {
+				sb.append(' ');
+			}
+			// Una de cada cinco palabras es una entidad
+			sb.append(random.nextInt(5) == 0
+					? ENTITIES[random.nextInt(ENTITIES.length)]
+					: WORDS[random.nextInt(WORDS.length)]);
+		}
+		return escape(sb.append('.').toString());
+	}
+
+	private static String escape(String s) {
+		return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+	}
+
+	private static String etagOf(byte[] body) {
+		CRC32 crc = new CRC32();
+		crc.update(body);
+		return "\"" + Long.toHexString(crc.getValue()) + "-" + body.length + "\"";
+	}
+
+	private static String httpDate(Date date) {
+		SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.ENGLISH);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		return format.format(date);
+	}
+
+	private static byte[] gzip(byte[] body) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4 + 64);
+		try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+			out.write(body);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static Map<String, String> queryParams(String rawQuery) {
+		Map<String, String> params = new HashMap<>();
+		if (rawQuery == null) {
+			return params;
+		}
+		for (String pair : rawQuery.split("&")) {
+			int eq = pair.indexOf('=');
+			String key = (eq >= 0) ? pair.substring(0, eq) : pair;
+			String value = (eq >= 0) ? pair.substring(eq + 1) : "";
+			params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+		}
+		return params;
+	}
+
+	private static int intParam(Map<String, String> params, String name, int defaultValue) {
+		try {
+			return params.containsKey(name) ? Integer.parseInt(params.get(name)) : defaultValue;
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	private static int jitter(int max) {
+		return (max > 0) ? ThreadLocalRandom.current().nextInt(max + 1) : 0;
+	}
+
+	private static void sleep(int millis) throws InterruptedException {
+		if (millis > 0) {
+			Thread.sleep(millis);
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		Path fixtures = Paths.get((args.length > 1) ? args[1] : DEFAULT_FIXTURES);
+
+		MockFeedServer mock = new MockFeedServer(port, fixtures);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			System.out.println(mock.summary());
+			mock.stop();
+		}));
+		mock.start();
+		System.out.println("MockFeedServer escuchando en http://localhost:" + mock.getPort()
+				+ " (fixtures: " + fixtures.toAbsolutePath() + ")");
+	}
+}
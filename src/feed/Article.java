@@ -2,12 +2,17 @@ package feed;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import namedEntity.NamedEntity;
+import namedEntity.Tokenizer;
 import namedEntity.categories.Person.*;
 import namedEntity.categories.Place.*;
 import namedEntity.categories.*;
+import namedEntity.heuristic.EntityDictionary;
 import namedEntity.heuristic.Heuristic;
 import namedEntity.topics.*;
 // import namedEntity.topics.Topic;
@@ -22,8 +27,18 @@ public class Article implements Serializable {
 	private Date publicationDate;
 	private String link;
 
+	// Cada hilo reutiliza su tokenizer de un artículo al siguiente
+	private static final ThreadLocal<Tokenizer> tokenizers = ThreadLocal.withInitial(Tokenizer::new);
+	// ... y su BitSet con las decisiones de la heurística para cada palabra
+	private static final ThreadLocal<BitSet> entityFlags = ThreadLocal.withInitial(BitSet::new);
+
 	private  List<NamedEntity> namedEntityList = new ArrayList<NamedEntity>();
 
+	// Índice nombre -> primera entidad con ese nombre en namedEntityList. No se serializa: se
+	// arma a demanda, agregando las entidades que se sumaron a la lista desde la última búsqueda
+	private transient Map<String, NamedEntity> entityIndex;
+	private transient int indexedEntities;
+
 	public Article(String title, String text, Date publicationDate, String link) {
 		super();
 		this.title = title;
@@ -86,106 +101,93 @@ public class Article implements Serializable {
 	}
 
 	public NamedEntity getNamedEntity(String namedEntity) {
-		for (NamedEntity n : this.namedEntityList) {
-			if (n.getName().compareTo(namedEntity) == 0) {
-				return n;
-			}
+		return this.entityIndex().get(namedEntity);
+	}
+
+	private Map<String, NamedEntity> entityIndex() {
+		int size = this.namedEntityList.size();
+		if (this.entityIndex == null || this.indexedEntities > size) {
+			// Primera búsqueda, o se sacaron entidades de la lista: se indexa todo de nuevo
+			this.entityIndex = new HashMap<String, NamedEntity>();
+			this.indexedEntities = 0;
 		}
-		return null;
+		for (; this.indexedEntities < size; this.indexedEntities++) {
+			NamedEntity n = this.namedEntityList.get(this.indexedEntities);
+			this.entityIndex.putIfAbsent(n.getName(), n); // Como la búsqueda lineal: gana la primera
+		}
+		return this.entityIndex;
 	}
 
 	
+	/**
+	 * Busca las entidades nombradas del título y el texto. En cada palabra se prueba primero la
+	 * frase más larga del diccionario de la heurística que empieza ahí (hasta 4 palabras), luego
+	 * las más cortas, y si ninguna es entidad se decide por la palabra sola. Las palabras se
+	 * clasifican todas juntas con una sola llamada a h.classify().
+	 */
 	public void computeNamedEntities(Heuristic h) {
-        String fullText = this.getTitle() + " " + this.getText();
+        // Palabras de título + texto, sin signos de puntuación (rangos del buffer del tokenizer)
+        Tokenizer words = tokenizers.get();
+        words.tokenize(this.getTitle(), this.getText());
+        int n = words.size();
 
-        String charsToRemove = ".,;:()'’!?\n";
-        for (char c : charsToRemove.toCharArray()) {
-            fullText = fullText.replace(String.valueOf(c), "");
-        }
+        // La heurística decide todas las palabras de una vez: isWordEntity.get(i) es isEntity de la palabra i
+        BitSet isWordEntity = entityFlags.get();
+        h.classify(words, isWordEntity);
 
-        String[] words = fullText.split(" ");
-        int n = words.length;
+        EntityDictionary dictionary = h.getDictionary();
+        EntityDictionary.Entry[] matches = new EntityDictionary.Entry[EntityDictionary.MAX_TOKENS];
 
         for (int i = 0; i < n; /* i se gestiona abajo */) {
-            if (words[i].trim().isEmpty()) {
+            if (words.isBlank(i)) {
                 i++;
                 continue;
             }
 
-            boolean entityProcessedInThisIteration = false;
-            // Probar N-gramas desde el más largo (4) hasta el más corto (1)
-            for (int ngramSize = Math.min(4, n - i); ngramSize >= 1; ngramSize--) {
-                StringBuilder phraseBuilder = new StringBuilder();
-                // 1. Construir el N-grama completo para el ngramSize actual
-                for (int j = 0; j < ngramSize; j++) {
-                    if (j > 0) {
-                        phraseBuilder.append(" ");
-                    }
-                    phraseBuilder.append(words[i + j]);
-                }
-                String candidatePhrase = phraseBuilder.toString();
-
-                // 2. Intentar procesar este N-grama completo
-                // Primero, verificar si la forma canónica del N-grama está en categoryMap
-                String canonicalName = h.getCanonical(candidatePhrase);
-                Category categoryFromCanonicalMap = h.getCategory(canonicalName);
-
-                if (!categoryFromCanonicalMap.isOther() && h.isEntity(candidatePhrase)) {
+            // Frases del diccionario que empiezan en la palabra i: matches[k - 1] es la de k palabras
+            int longest = dictionary.matchAt(words, i, matches);
+            int consumed = 0;
+            for (int ngramSize = longest; ngramSize >= 1 && consumed == 0; ngramSize--) {
+                EntityDictionary.Entry match = matches[ngramSize - 1];
+                // Una frase de una palabra es la palabra misma: ya está decidida
+                boolean entity = (match != null)
+                        && ((ngramSize == 1) ? isWordEntity.get(i) : h.isEntity(match.getPhrase()));
+                if (entity) {
                     // CASO 1: El N-grama (vía su forma canónica) está definido en categoryMap.
+                    String canonicalName = match.getCanonical();
                     NamedEntity ne = this.getNamedEntity(canonicalName);
                     if (ne == null) {
                         Topic topic = h.getTopic(canonicalName);
-                        NamedEntity newEntity = new NamedEntity(canonicalName, 1, categoryFromCanonicalMap, topic);
-                        if (newEntity != null) {
-                            this.namedEntityList.add(newEntity);
-                        }
+                        this.namedEntityList.add(new NamedEntity(canonicalName, 1, match.getCategory(), topic));
                     } else {
                         ne.incFrequency();
                     }
-                    i += ngramSize; // Avanzar i por el tamaño del N-grama encontrado
-                    entityProcessedInThisIteration = true;
-                    break; // Salir del bucle de ngramSize, N-grama más largo encontrado y procesado.
+                    consumed = ngramSize; // N-grama más largo encontrado y procesado
                 }
-                // Si el N-grama no estaba en categoryMap, y es una sola palabra (ngramSize == 1),
-                // entonces aplicar la lógica de h.isEntity() (para QuickHeuristic)
-                else if (ngramSize == 1 && h.isEntity(candidatePhrase)) { // candidatePhrase es una sola palabra aquí
-                    // CASO 2: Es una palabra individual, no en categoryMap directamente, pero h.isEntity() es true.
-                    // 'canonicalName' ya es h.getCanonical(candidatePhrase)
-                    String actualCanonicalForSingleWord = canonicalName;
-                     if (actualCanonicalForSingleWord == null || actualCanonicalForSingleWord.isEmpty()){
-                            actualCanonicalForSingleWord = candidatePhrase; // Fallback si getCanonical dio nulo/vacío
-                     }
-
-
-                    NamedEntity ne = this.getNamedEntity(actualCanonicalForSingleWord);
-                    if (ne == null) {
-                        // Determinar categoría:
-                        // 1. categoryFromCanonicalMap ya sabemos que es vacía.
-                        // 2. Intentar categoría de la palabra original (candidatePhrase).
-                        Category categoryForSingleWord = h.getCategory(candidatePhrase);
-                        // if (categoryForSingleWord == null || categoryForSingleWord.isEmpty()) {
-                        //     // 3. Si sigue sin categoría, es "Other".
-                        //     categoryForSingleWord = "Other";
-                        // }
-                        Topic topic = h.getTopic(actualCanonicalForSingleWord);
-                        NamedEntity newEntity = new NamedEntity(candidatePhrase,1,categoryForSingleWord,topic);
-                        if (newEntity != null) {
-                            this.namedEntityList.add(newEntity);
-                        }
-                    } else {
-                        ne.incFrequency();
-                    }
-                    i += 1; // Avanzamos una palabra
-                    entityProcessedInThisIteration = true;
-                    break; // Salir del bucle de ngramSize, palabra individual procesada.
+            }
+
+            if (consumed == 0 && isWordEntity.get(i)) {
+                // CASO 2: Es una palabra individual, no en categoryMap directamente, pero h.isEntity() es true.
+                String candidateWord = words.token(i);
+                String actualCanonicalForSingleWord = h.getCanonical(candidateWord);
+                if (actualCanonicalForSingleWord == null || actualCanonicalForSingleWord.isEmpty()) {
+                    actualCanonicalForSingleWord = candidateWord; // Fallback si getCanonical dio nulo/vacío
                 }
-            } // Fin del bucle ngramSize
 
-            if (!entityProcessedInThisIteration) {
-                // Si, después de probar todos los N-gramas (de 4 a 1) para words[i], no se procesó nada,
-                // entonces simplemente avanzamos una palabra para la siguiente iteración.
-                i++;
+                NamedEntity ne = this.getNamedEntity(actualCanonicalForSingleWord);
+                if (ne == null) {
+                    // La categoría es la de la palabra original (si no tiene, es "Other")
+                    Category categoryForSingleWord = h.getCategory(candidateWord);
+                    Topic topic = h.getTopic(actualCanonicalForSingleWord);
+                    this.namedEntityList.add(new NamedEntity(candidateWord, 1, categoryForSingleWord, topic));
+                } else {
+                    ne.incFrequency();
+                }
+                consumed = 1;
             }
+
+            // Si no se procesó nada, simplemente avanzamos una palabra
+            i += Math.max(consumed, 1);
         }
     }
 
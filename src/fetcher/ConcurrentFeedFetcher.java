@@ -0,0 +1,153 @@
+package fetcher;
+
+import feed.Feed;
+import httpRequest.FeedResponse;
+import httpRequest.HostScheduler;
+import httpRequest.HttpRequester;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import parser.RedditParser;
+import parser.RssParser;
+
+/**
+ * Descarga y parsea los feeds de forma concurrente, con un tope configurable de feeds en vuelo.
+ * Cada feed se procesa en su propia tarea (descarga + parser), pero los resultados se devuelven
+ * en el mismo orden que los pedidos, asi la salida es estable sin importar que feed termine primero.
+ * Las tareas pasan por un HostScheduler, que limita cuanto se le pide a cada host.
+ * Como el proyecto compila contra Java 17 no hay virtual threads: se usa un pool acotado.
+ *
+ * Tambien puede usar un HostScheduler que ya existe (por ejemplo, HostScheduler.shared() en un
+ * executor de Spark): en ese caso el tope de feeds en vuelo se respeta con un semaforo y los
+ * limites por host valen para todos los que comparten el scheduler.
+ */
+public class ConcurrentFeedFetcher {
+
+	public static final int DEFAULT_PARALLELISM = 16;
+
+	private final HttpRequester requester;
+	private final int parallelism;
+	private final HostScheduler scheduler;
+
+	/**
+	 * Cada llamada a fetchAll usa su propio pool de parallelism hilos y su propio HostScheduler.
+	 */
+	public ConcurrentFeedFetcher(HttpRequester requester, int parallelism) {
+		this(requester, parallelism, null);
+	}
+
+	/**
+	 * Los pedidos pasan por el scheduler dado, con hasta parallelism de ellos en vuelo a la vez.
+	 */
+	public ConcurrentFeedFetcher(HttpRequester requester, int parallelism, HostScheduler scheduler) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be >= 1, got " + parallelism);
+		}
+		this.requester = requester;
+		this.parallelism = parallelism;
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Lee el tope de paralelismo de la propiedad del sistema feedreader.parallelism.
+	 */
+	public static int parallelismFromSystemProperties() {
+		return Integer.getInteger("feedreader.parallelism", DEFAULT_PARALLELISM);
+	}
+
+	/**
+	 * Descarga y parsea todos los pedidos. Los feeds que fallan se informan y se omiten.
+	 * @param requests los pedidos, en el orden en que se quieren los resultados
+	 * @return los feeds parseados, en el orden de los pedidos
+	 */
+	public List<Feed> fetchAll(List<FeedRequest> requests) {
+		if (requests.isEmpty()) {
+			return new ArrayList<Feed>();
+		}
+
+		if (scheduler != null) {
+			return fetchAll(requests, scheduler, new Semaphore(parallelism));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(
+				Math.min(parallelism, requests.size()), daemonThreadFactory());
+		HostScheduler ownScheduler = HostScheduler.fromSystemProperties(executor);
+		try {
+			// El pool ya acota los pedidos en vuelo: no hace falta semaforo
+			return fetchAll(requests, ownScheduler, null);
+		} finally {
+			ownScheduler.shutdown();
+			executor.shutdownNow();
+		}
+	}
+
+	private List<Feed> fetchAll(List<FeedRequest> requests, HostScheduler scheduler, Semaphore inFlight) {
+		List<Feed> feeds = new ArrayList<Feed>();
+		try {
+			// El scheduler agrupa los pedidos por host y solo entrega al pool los que su host admite
+			List<Future<Feed>> pending = new ArrayList<Future<Feed>>();
+			for (FeedRequest request : requests) {
+				if (inFlight != null) {
+					inFlight.acquire();
+					pending.add(scheduler.submit(request.getUrl(), () -> fetchAndParse(request))
+							.whenComplete((feed, error) -> inFlight.release()));
+				} else {
+					pending.add(scheduler.submit(request.getUrl(), () -> fetchAndParse(request)));
+				}
+			}
+
+			// Se espera en orden de envio: el tiempo total es el del feed mas lento, no la suma
+			for (int i = 0; i < pending.size(); i++) {
+				try {
+					Feed feed = pending.get(i).get();
+					if (feed != null) {
+						feeds.add(feed);
+					}
+				} catch (ExecutionException e) {
+					System.out.println("    Error procesando " + requests.get(i).getUrl() + ": " + e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return feeds;
+	}
+
+	private Feed fetchAndParse(FeedRequest request) throws Exception {
+		String urlType = request.getUrlType();
+		String finalUrl = request.getUrl();
+
+		// El parser lee el cuerpo directamente de la respuesta, sin copiarlo a un String
+		if ("reddit".equalsIgnoreCase(urlType)) {
+			try (FeedResponse response = requester.fetchReddit(finalUrl)) {
+				RedditParser parser = new RedditParser(response.getBody(), response.getCharset(), finalUrl);
+				return parser.parseFeed();
+			}
+
+		} else if ("rss".equalsIgnoreCase(urlType)) {
+			try (FeedResponse response = requester.fetchRss(finalUrl)) {
+				RssParser rssParser = new RssParser(response.getBody(), response.getCharset(), finalUrl);
+				return rssParser.parseFeed();
+			}
+
+		} else {
+			System.out.println("    Tipo de suscripción desconocido: " + urlType);
+			return null;
+		}
+	}
+
+	private static ThreadFactory daemonThreadFactory() {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread t = new Thread(runnable, "feed-fetcher-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		};
+	}
+}
@@ -0,0 +1,47 @@
+package fetcher;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import subscription.SingleSubscription;
+import subscription.Subscription;
+
+/*Esta clase modela un pedido de feed ya expandido: la url final (con el %s reemplazado) y su tipo*/
+public class FeedRequest implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final String url;
+	private final String urlType;
+
+	public FeedRequest(String url, String urlType) {
+		this.url = url;
+		this.urlType = urlType;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public String getUrlType() {
+		return urlType;
+	}
+
+	/**
+	 * Expande todas las suscripciones en la lista de pedidos, respetando el orden del archivo
+	 * de suscripciones y el de sus urlParams.
+	 */
+	public static List<FeedRequest> expand(Subscription subscription) {
+		List<FeedRequest> requests = new ArrayList<FeedRequest>();
+		for (SingleSubscription sub : subscription.getSubscriptionsList()) {
+			for (int i = 0; i < sub.getUrlParamsSize(); i++) {
+				requests.add(new FeedRequest(sub.getFeedToRequest(i), sub.getUrlType()));
+			}
+		}
+		return requests;
+	}
+
+	@Override
+	public String toString() {
+		return "{url=" + url + ", urlType=" + urlType + "}";
+	}
+}
@@ -0,0 +1,49 @@
+package httpRequest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/* Cuenta los bytes que se leen a traves de este stream */
+class CountingInputStream extends FilterInputStream {
+
+	private long count = 0;
+
+	CountingInputStream(InputStream in) {
+		super(in);
+	}
+
+	long getCount() {
+		return count;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = super.read();
+		if (b >= 0) {
+			count++;
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] buf, int off, int len) throws IOException {
+		int n = super.read(buf, off, len);
+		if (n > 0) {
+			count += n;
+		}
+		return n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = super.skip(n);
+		count += skipped;
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+}
@@ -0,0 +1,241 @@
+package httpRequest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/* Esta clase implementa un cache persistente en disco de los cuerpos de los feeds.
+ * Por cada url final (ya con el %s expandido) guarda el cuerpo junto con el ETag y el
+ * Last-Modified que devolvio el servidor, para poder hacer un GET condicional en la
+ * proxima corrida y servir el cuerpo desde disco cuando la respuesta es 304.
+ *
+ * Cada entrada es un unico archivo (cabecera + cuerpo) que se escribe en un temporal y
+ * se renombra, asi un lector nunca ve una entrada a medio escribir. El cuerpo se copia al
+ * temporal a medida que el parser lo lee de la red, sin juntarlo en memoria.
+ * */
+public class FeedCache {
+
+	public static final String DEFAULT_DIRECTORY = "cache";
+
+	private static final int FORMAT_VERSION = 2;
+
+	private final Path directory;
+
+	public FeedCache(Path directory) throws IOException {
+		this.directory = directory;
+		Files.createDirectories(directory);
+	}
+
+	/**
+	 * Crea el cache en el directorio indicado por la propiedad feedreader.cacheDir
+	 * (por defecto ./cache). Un valor vacio desactiva el cache y devuelve null.
+	 */
+	public static FeedCache fromSystemProperties() throws IOException {
+		String dir = System.getProperty("feedreader.cacheDir", DEFAULT_DIRECTORY);
+		if (dir.trim().isEmpty()) {
+			return null;
+		}
+		return new FeedCache(Paths.get(dir));
+	}
+
+	/* Entrada del cache: validadores HTTP y charset declarado del cuerpo guardado */
+	public static class Entry {
+		private final String url;
+		private final Path file;
+		private final String etag;
+		private final String lastModified;
+		private final String charset;
+
+		Entry(String url, Path file, String etag, String lastModified, String charset) {
+			this.url = url;
+			this.file = file;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.charset = charset;
+		}
+
+		public String getEtag() {
+			return etag;
+		}
+
+		public String getLastModified() {
+			return lastModified;
+		}
+
+		public String getCharset() {
+			return charset;
+		}
+
+		/**
+		 * Abre el cuerpo guardado, posicionado justo despues de la cabecera.
+		 */
+		public InputStream openBody() throws IOException {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+			try {
+				if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(url)) {
+					throw new IOException("Cache entry replaced while reading: " + url);
+				}
+				in.readUTF();
+				in.readUTF();
+				in.readUTF();
+				return in;
+			} catch (IOException e) {
+				in.close();
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Busca la entrada de una url.
+	 * @return la entrada, o null si no hay nada guardado (o el archivo no es legible)
+	 */
+	public Entry lookup(String url) {
+		Path file = fileFor(url);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(url)) {
+				return null; // Formato viejo o colision del hash: se trata como ausente
+			}
+			String etag = emptyToNull(in.readUTF());
+			String lastModified = emptyToNull(in.readUTF());
+			String charset = emptyToNull(in.readUTF());
+			return new Entry(url, file, etag, lastModified, charset);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			System.err.println("Entrada de cache ilegible para " + url + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Envuelve el cuerpo que llega de la red para que se guarde en el cache mientras se lee.
+	 * La entrada se publica cuando el stream se cierra despues de que quien lo lee llego al
+	 * final; si lo cierra antes (por ejemplo porque el parser fallo) se descarta.
+	 * Si el servidor no mando ningun validador no tiene sentido guardarlo, porque nunca se va
+	 * a poder revalidar, y se devuelve el stream original.
+	 */
+	public InputStream storing(String url, String etag, String lastModified, String charset, InputStream body)
+			throws IOException {
+		if (etag == null && lastModified == null) {
+			return body;
+		}
+		Path file = fileFor(url);
+		Path tmp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+		DataOutputStream out;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)));
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(url);
+			out.writeUTF(etag != null ? etag : "");
+			out.writeUTF(lastModified != null ? lastModified : "");
+			out.writeUTF(charset != null ? charset : "");
+		} catch (IOException e) {
+			Files.deleteIfExists(tmp);
+			throw e;
+		}
+		return new TeeInputStream(body, out, tmp, file);
+	}
+
+	/* Copia al temporal lo que se lee; al cerrar publica la entrada si se leyo hasta el EOF */
+	private static class TeeInputStream extends FilterInputStream {
+		private final OutputStream copy;
+		private final Path tmp;
+		private final Path target;
+		private boolean failed = false;
+		private boolean eof = false;
+		private boolean closed = false;
+
+		TeeInputStream(InputStream body, OutputStream copy, Path tmp, Path target) {
+			super(body);
+			this.copy = copy;
+			this.tmp = tmp;
+			this.target = target;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b < 0) {
+				eof = true;
+			} else if (!failed) {
+				try {
+					copy.write(b);
+				} catch (IOException e) {
+					failed = true;
+				}
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buf, int off, int len) throws IOException {
+			int n = super.read(buf, off, len);
+			if (n < 0) {
+				eof = true;
+			} else if (n > 0 && !failed) {
+				try {
+					copy.write(buf, off, n);
+				} catch (IOException e) {
+					failed = true; // Un cache que no se puede escribir no debe hacer fallar la lectura
+				}
+			}
+			return n;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			// Si no se llego al EOF el cuerpo quedo a medias (un parser que fallo, un timeout):
+			// guardarlo haria que el proximo 304 sirva esa copia rota
+			if (!eof) {
+				failed = true;
+			}
+			try {
+				copy.close();
+				if (!failed) {
+					Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				}
+			} catch (IOException e) {
+				System.err.println("No se pudo guardar en cache " + target + ": " + e.getMessage());
+			} finally {
+				Files.deleteIfExists(tmp);
+				super.close();
+			}
+		}
+	}
+
+	private Path fileFor(String url) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] hash = digest.digest(url.getBytes(StandardCharsets.UTF_8));
+			StringBuilder name = new StringBuilder(hash.length * 2 + 5);
+			for (byte b : hash) {
+				name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return directory.resolve(name.append(".feed").toString());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+	private static String emptyToNull(String s) {
+		return s.isEmpty() ? null : s;
+	}
+}
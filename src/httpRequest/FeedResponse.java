@@ -0,0 +1,81 @@
+package httpRequest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/* Esta clase modela el cuerpo de un feed descargado, listo para entregarselo a un parser.
+ * El cuerpo se lee directamente del socket (o del archivo del cache), sin pasar por un String
+ * intermedio y ya descomprimido si el servidor lo mando con gzip/deflate. Hay que cerrarlo al
+ * terminar para devolver la conexion al pool; al cerrarlo se registran sus TransferStats.
+ * */
+public class FeedResponse implements Closeable {
+
+	private final String url;
+	private final InputStream body;
+	private final String charset;
+	private final boolean fromCache;
+	private final String contentEncoding;
+	private final CountingInputStream wire;
+	private final CountingInputStream decoded;
+	private final Consumer<TransferStats> onClose;
+	private boolean closed = false;
+
+	FeedResponse(String url, InputStream body, String charset, boolean fromCache, String contentEncoding,
+			CountingInputStream wire, CountingInputStream decoded, Consumer<TransferStats> onClose) {
+		this.url = url;
+		this.body = body;
+		this.charset = charset;
+		this.fromCache = fromCache;
+		this.contentEncoding = contentEncoding;
+		this.wire = wire;
+		this.decoded = decoded;
+		this.onClose = onClose;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public InputStream getBody() {
+		return body;
+	}
+
+	/**
+	 * Charset declarado en el Content-Type de la respuesta, o null si el servidor no declaro
+	 * ninguno (en ese caso el parser lo detecta del documento).
+	 */
+	public String getCharset() {
+		return charset;
+	}
+
+	/* true si el servidor respondio 304 y el cuerpo sale del cache en disco */
+	public boolean isFromCache() {
+		return fromCache;
+	}
+
+	/**
+	 * Bytes leidos hasta ahora: los que vinieron por la red y los del cuerpo descomprimido.
+	 * Son definitivos despues de close().
+	 */
+	public TransferStats getTransferStats() {
+		long wireBytes = (wire != null) ? wire.getCount() : 0;
+		return new TransferStats(url, contentEncoding, wireBytes, decoded.getCount(), fromCache);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			body.close();
+		} finally {
+			if (onClose != null) {
+				onClose.accept(getTransferStats());
+			}
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package httpRequest;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/* Esta clase reparte los pedidos de feeds respetando limites por host.
+ * Los pedidos se agrupan en una cola por host; cada host tiene un tope de pedidos en vuelo
+ * y un token bucket que limita cuantos pedidos por segundo se le hacen. Los hosts distintos
+ * no se esperan entre si. Si un host responde 429/503 se lo pausa el tiempo que pida su
+ * Retry-After (o un backoff exponencial si no lo manda) y el pedido se reintenta.
+ *
+ * Las tareas solo se entregan al executor cuando su host tiene lugar, asi ningun hilo del
+ * pool queda bloqueado esperando a un host lento mientras otros hosts tienen trabajo.
+ *
+ * Los limites cuentan tareas, no conexiones: el hedge que HttpRequester manda con
+ * feedreader.hedge=true sale dentro de la tarea del pedido original, sin lugar ni token
+ * propios. Un host lento puede ver hasta el doble de pedidos en vuelo, acotado por el
+ * presupuesto de hedges (uno cada diez pedidos).
+ * */
+public class HostScheduler {
+
+	public static final int DEFAULT_MAX_PER_HOST = 4;
+	public static final double DEFAULT_REQUESTS_PER_SECOND = 4.0;
+	public static final int DEFAULT_MAX_RETRIES = 3;
+
+	private static final long INITIAL_BACKOFF_MILLIS = 1000;
+
+	private static volatile HostScheduler shared;
+
+	private final Executor executor;
+	private final int maxPerHost;
+	private final double requestsPerSecond;
+	private final int burst;
+	private final int maxRetries;
+	private final Map<String, HostState> hosts = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService timer;
+
+	public HostScheduler(Executor executor, int maxPerHost, double requestsPerSecond, int burst, int maxRetries) {
+		if (maxPerHost < 1 || requestsPerSecond <= 0 || burst < 1 || maxRetries < 0) {
+			throw new IllegalArgumentException("invalid host limits");
+		}
+		this.executor = executor;
+		this.maxPerHost = maxPerHost;
+		this.requestsPerSecond = requestsPerSecond;
+		this.burst = burst;
+		this.maxRetries = maxRetries;
+		this.timer = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("host-scheduler-timer"));
+	}
+
+	/**
+	 * Crea un scheduler con los limites de las propiedades feedreader.host.maxConcurrency,
+	 * feedreader.host.rate (pedidos por segundo), feedreader.host.burst y feedreader.host.maxRetries.
+	 */
+	public static HostScheduler fromSystemProperties(Executor executor) {
+		int maxPerHost = Integer.getInteger("feedreader.host.maxConcurrency", DEFAULT_MAX_PER_HOST);
+		double rate = Double.parseDouble(System.getProperty("feedreader.host.rate",
+				String.valueOf(DEFAULT_REQUESTS_PER_SECOND)));
+		int burst = Integer.getInteger("feedreader.host.burst", maxPerHost);
+		int maxRetries = Integer.getInteger("feedreader.host.maxRetries", DEFAULT_MAX_RETRIES);
+		return new HostScheduler(executor, maxPerHost, rate, burst, maxRetries);
+	}
+
+	/**
+	 * Scheduler compartido por toda la JVM (por ejemplo, por todas las tareas de un executor de
+	 * Spark), con su propio pool de hilos. Los limites por host valen dentro de esta JVM.
+	 */
+	public static HostScheduler shared() {
+		if (shared == null) {
+			synchronized (HostScheduler.class) {
+				if (shared == null) {
+					ExecutorService pool = Executors.newCachedThreadPool(daemonThreadFactory("host-scheduler-worker"));
+					shared = fromSystemProperties(pool);
+				}
+			}
+		}
+		return shared;
+	}
+
+	/**
+	 * Encola una tarea que hace un pedido a la url dada. La tarea corre en el executor cuando su
+	 * host tiene lugar; si falla con un RequestException de throttling se reintenta mas tarde.
+	 */
+	public <T> CompletableFuture<T> submit(String url, Callable<T> task) {
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		HostState state = hosts.computeIfAbsent(hostOf(url), host -> new HostState());
+		synchronized (state) {
+			state.queue.addLast(new Job<T>(task, result));
+		}
+		dispatch(state);
+		return result;
+	}
+
+	/* Detiene el timer interno; el executor lo sigue administrando quien lo creo */
+	public void shutdown() {
+		timer.shutdownNow();
+	}
+
+	private void dispatch(HostState state) {
+		synchronized (state) {
+			while (state.active < maxPerHost && !state.queue.isEmpty()) {
+				long now = System.nanoTime();
+				if (state.pausedUntil - now > 0) {
+					scheduleDispatch(state, state.pausedUntil - now);
+					return;
+				}
+				state.refill(now);
+				if (state.tokens < 1.0) {
+					long wait = (long) ((1.0 - state.tokens) / requestsPerSecond * 1e9);
+					scheduleDispatch(state, wait);
+					return;
+				}
+				state.tokens -= 1.0;
+				state.active++;
+				Job<?> job = state.queue.pollFirst();
+				executor.execute(() -> run(state, job));
+			}
+		}
+	}
+
+	private void scheduleDispatch(HostState state, long delayNanos) {
+		if (state.timerPending) {
+			return;
+		}
+		state.timerPending = true;
+		timer.schedule(() -> {
+			synchronized (state) {
+				state.timerPending = false;
+			}
+			dispatch(state);
+		}, Math.max(delayNanos, 0), TimeUnit.NANOSECONDS);
+	}
+
+	private <T> void run(HostState state, Job<T> job) {
+		try {
+			job.result.complete(job.task.call());
+		} catch (RequestException e) {
+			if (e.isThrottled() && job.attempts < maxRetries) {
+				long backoff = (e.getRetryAfterMillis() >= 0)
+						? e.getRetryAfterMillis()
+						: INITIAL_BACKOFF_MILLIS << job.attempts;
+				job.attempts++;
+				synchronized (state) {
+					long resumeAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoff);
+					if (resumeAt - state.pausedUntil > 0) {
+						state.pausedUntil = resumeAt;
+					}
+					state.queue.addFirst(job);
+				}
+			} else {
+				job.result.completeExceptionally(e);
+			}
+		} catch (Throwable e) {
+			job.result.completeExceptionally(e);
+		} finally {
+			synchronized (state) {
+				state.active--;
+			}
+			dispatch(state);
+		}
+	}
+
+	static String hostOf(String url) {
+		try {
+			String host = URI.create(url).getHost();
+			if (host != null) {
+				return host.toLowerCase(Locale.ROOT);
+			}
+		} catch (IllegalArgumentException e) {
+			// Url invalida: la tarea va a fallar sola, alcanza con agruparla aparte
+		}
+		return url;
+	}
+
+	private static ThreadFactory daemonThreadFactory(String name) {
+		return runnable -> {
+			Thread t = new Thread(runnable, name);
+			t.setDaemon(true);
+			return t;
+		};
+	}
+
+	/* Estado de un host: cola de pendientes, pedidos en vuelo y token bucket */
+	private class HostState {
+		final Deque<Job<?>> queue = new ArrayDeque<Job<?>>();
+		int active = 0;
+		double tokens = burst;
+		long lastRefill = System.nanoTime();
+		long pausedUntil = lastRefill;
+		boolean timerPending = false;
+
+		void refill(long now) {
+			tokens = Math.min(burst, tokens + (now - lastRefill) / 1e9 * requestsPerSecond);
+			lastRefill = now;
+		}
+	}
+
+	private static class Job<T> {
+		final Callable<T> task;
+		final CompletableFuture<T> result;
+		int attempts = 0;
+
+		Job(Callable<T> task, CompletableFuture<T> result) {
+			this.task = task;
+			this.result = result;
+		}
+	}
+}
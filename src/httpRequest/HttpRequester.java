@@ -1,21 +1,71 @@
 package httpRequest;
 
 import java.io.IOException;
-import java.net.HttpURLConnection;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.net.MalformedURLException;
-import java.net.ProtocolException;
-import java.net.URL;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 /* Esta clase se encarga de realizar efectivamente el pedido de feed al servidor de noticias
  * Leer sobre como hacer una http request en java
  * https://www.baeldung.com/java-http-request
+ *
+ * Todos los HttpRequester de una misma JVM (o de un mismo executor de Spark) comparten
+ * un unico HttpClient por timeout de conexion, asi las conexiones keep-alive y las
+ * sesiones HTTP/2 se reutilizan entre feeds del mismo host en lugar de hacer un
+ * handshake TCP+TLS nuevo por cada pedido.
+ *
+ * fetchRss/fetchReddit devuelven el cuerpo como stream para que el parser lo consuma a
+ * medida que llega; getFeedRss/getFeedReddit quedan para quien necesite el texto completo.
+ * Se pide el cuerpo comprimido (gzip/deflate) y se descomprime al vuelo mientras se lee.
+ *
+ * El timeout de cada pedido se ajusta a lo que viene tardando su host (4 veces el p95 del
+ * tiempo hasta los headers, entre 1 segundo y readTimeout), asi un host colgado no frena la
+ * corrida entera. Cada lectura del cuerpo tiene aparte un timeout fijo de readTimeout
+ * (ReadTimeoutInputStream), asi tampoco la frena un servidor que deja de mandar el cuerpo a
+ * mitad de camino; lo que tarda un host en mandar los headers no dice nada de las pausas
+ * dentro del cuerpo. Con feedreader.hedge=true, si la respuesta no llego cuando se cumple el
+ * p95 del host se manda el mismo pedido otra vez y se usa la primera respuesta que llegue;
+ * ese duplicado no pasa por los limites por host de HostScheduler.
  * */
 
 public class HttpRequester {
 
+	private static final Map<Integer, HttpClient> sharedClients = new ConcurrentHashMap<>();
+
+	private static final int TIMEOUT_P95_MULTIPLIER = 4;
+	private static final long MIN_TIMEOUT_MILLIS = 1000;
+	// Como mucho uno de cada diez pedidos a un host lleva un hedge
+	private static final double HEDGE_BUDGET = 0.1;
+
 	private int connectTimeout;
 	private int readTimeout;
+	private FeedCache cache;
+	private final Map<String, TransferStats> transferStats = new ConcurrentHashMap<>();
+	private final LatencyTracker latencies = LatencyTracker.shared();
+	private boolean adaptiveTimeouts = !"false".equals(System.getProperty("feedreader.adaptiveTimeout"));
+	private boolean hedging = Boolean.getBoolean("feedreader.hedge");
 
 	public HttpRequester() {
 		this.connectTimeout = 5000;
@@ -27,40 +77,382 @@ public class HttpRequester {
 		this.readTimeout = readTimeout;
 	}
 
+	/**
+	 * Crea un requester que hace GET condicionales contra el cache dado (puede ser null).
+	 */
+	public HttpRequester(FeedCache cache) {
+		this();
+		this.cache = cache;
+	}
+
+	/**
+	 * Devuelve el cliente compartido para el timeout de conexion dado, creandolo la primera vez.
+	 * HttpClient es thread-safe y mantiene su propio pool de conexiones.
+	 */
+	private static HttpClient sharedClient(int connectTimeout) {
+		return sharedClients.computeIfAbsent(connectTimeout, timeout -> HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_2) // Negocia HTTP/2 via ALPN y cae a HTTP/1.1 si el servidor no lo soporta
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.connectTimeout(Duration.ofMillis(timeout))
+				.build());
+	}
+
+	/* Activa o desactiva el ajuste del timeout segun el p95 del host (feedreader.adaptiveTimeout) */
+	public void setAdaptiveTimeouts(boolean adaptiveTimeouts) {
+		this.adaptiveTimeouts = adaptiveTimeouts;
+	}
+
+	/* Activa o desactiva los pedidos duplicados a hosts lentos (feedreader.hedge) */
+	public void setHedging(boolean hedging) {
+		this.hedging = hedging;
+	}
+
+	public FeedResponse fetchRss(String urlFeed) throws IOException, RequestException {
+		return fetch(urlFeed, "application/rss+xml");
+	}
+
+	public FeedResponse fetchReddit(String urlFeed) throws IOException, RequestException {
+		return fetch(urlFeed, "application/json");
+	}
+
+	public CompletableFuture<FeedResponse> fetchRssAsync(String urlFeed) {
+		return fetchAsync(urlFeed, "application/rss+xml");
+	}
+
+	public CompletableFuture<FeedResponse> fetchRedditAsync(String urlFeed) {
+		return fetchAsync(urlFeed, "application/json");
+	}
+
 	public String getFeedRss(String urlFeed) throws IOException, RequestException {
-		return getData(urlFeed, "application/rss+xml");
+		return readFully(fetchRss(urlFeed));
 	}
 
-	private String getData(String urlFeed, String mimetype)
-			throws MalformedURLException, IOException, ProtocolException, RequestException {
-		String feedRssXml = null;
-		HttpURLConnection connection = null;
+	public String getFeedReddit(String urlFeed) throws IOException, RequestException {
+		return readFully(fetchReddit(urlFeed));
+	}
+
+	public CompletableFuture<String> getFeedRssAsync(String urlFeed) {
+		return fetchRssAsync(urlFeed).thenApply(HttpRequester::readFullyUnchecked);
+	}
+
+	public CompletableFuture<String> getFeedRedditAsync(String urlFeed) {
+		return fetchRedditAsync(urlFeed).thenApply(HttpRequester::readFullyUnchecked);
+	}
 
+	private HttpRequest buildRequest(String urlFeed, String host, String mimetype, FeedCache.Entry cached)
+			throws MalformedURLException {
+		URI uri;
 		try {
-			URL url = new URL(urlFeed);
-			connection = (HttpURLConnection) url.openConnection();
-			connection.setRequestMethod("GET");
-			connection.setRequestProperty("Accept", mimetype);
-			connection.setConnectTimeout(connectTimeout); // 5 seconds timeout
-			connection.setReadTimeout(readTimeout); // 5 seconds read timeout
-
-			int status = connection.getResponseCode();
-
-			if (status == HttpURLConnection.HTTP_OK) {
-				feedRssXml = new String(connection.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
-			} else {
-				throw new RequestException(status, urlFeed);
+			uri = URI.create(urlFeed);
+		} catch (IllegalArgumentException e) {
+			throw new MalformedURLException(urlFeed);
+		}
+		HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+				.GET()
+				.header("Accept", mimetype)
+				.header("Accept-Encoding", "gzip, deflate")
+				.timeout(Duration.ofMillis(timeoutFor(host)));
+
+		// GET condicional: si el feed no cambio el servidor responde 304 sin cuerpo
+		if (cached != null && cached.getEtag() != null) {
+			builder.header("If-None-Match", cached.getEtag());
+		}
+		if (cached != null && cached.getLastModified() != null) {
+			builder.header("If-Modified-Since", cached.getLastModified());
+		}
+		return builder.build();
+	}
+
+	private FeedResponse fetch(String urlFeed, String mimetype) throws IOException, RequestException {
+		FeedCache.Entry cached = (cache != null) ? cache.lookup(urlFeed) : null;
+		String host = HostScheduler.hostOf(urlFeed);
+		CompletableFuture<HttpResponse<InputStream>> pending = send(buildRequest(urlFeed, host, mimetype, cached), host);
+		HttpResponse<InputStream> response;
+		try {
+			response = pending.get();
+		} catch (InterruptedException e) {
+			pending.thenAccept(late -> closeQuietly(late.body()));
+			Thread.currentThread().interrupt();
+			throw new IOException("Request interrupted: " + urlFeed, e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof HttpTimeoutException) {
+				// Se relanza desde este hilo, con la url, como hace HttpClient.send
+				HttpTimeoutException timeout = new HttpTimeoutException(cause.getMessage() + ": " + urlFeed);
+				timeout.initCause(cause);
+				throw timeout;
+			}
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
 			}
-		} finally {
-			if (connection != null)
-				connection.disconnect();
+			throw new IOException("Request failed: " + urlFeed, cause);
 		}
+		return toFeedResponse(response, urlFeed, cached);
+	}
 
-		return feedRssXml;
+	private CompletableFuture<FeedResponse> fetchAsync(String urlFeed, String mimetype) {
+		FeedCache.Entry cached = (cache != null) ? cache.lookup(urlFeed) : null;
+		String host = HostScheduler.hostOf(urlFeed);
+		HttpRequest request;
+		try {
+			request = buildRequest(urlFeed, host, mimetype, cached);
+		} catch (MalformedURLException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		return send(request, host)
+				.thenCompose(response -> {
+					try {
+						return CompletableFuture.completedFuture(toFeedResponse(response, urlFeed, cached));
+					} catch (RequestException | IOException e) {
+						return CompletableFuture.failedFuture(e);
+					}
+				});
 	}
 
-	public String getFeedReddit(String urlFeed) throws IOException, RequestException {
-		return getData(urlFeed, "application/json");
+	/**
+	 * Timeout hasta recibir los headers: readTimeout mientras no haya suficientes muestras del
+	 * host, y despues TIMEOUT_P95_MULTIPLIER veces su p95, sin bajar de MIN_TIMEOUT_MILLIS.
+	 */
+	private long timeoutFor(String host) {
+		long p95 = adaptiveTimeouts ? latencies.p95(host) : -1;
+		if (p95 < 0) {
+			return readTimeout;
+		}
+		return Math.min(readTimeout, Math.max(MIN_TIMEOUT_MILLIS, p95 * TIMEOUT_P95_MULTIPLIER));
+	}
+
+	/**
+	 * Manda el pedido; si el hedging esta activo y el host ya tiene un p95, cuando se cumple ese
+	 * tiempo sin respuesta manda un duplicado. Gana la primera respuesta (con cualquier status) y
+	 * la otra se cierra apenas llega; solo se falla si fallan los dos. El duplicado usa el lugar
+	 * que HostScheduler le dio al pedido original: no toma otro ni gasta un token del host.
+	 */
+	private CompletableFuture<HttpResponse<InputStream>> send(HttpRequest request, String host) {
+		latencies.countRequest(host);
+		long hedgeDelay = hedging ? latencies.p95(host) : -1;
+		if (hedgeDelay < 0) {
+			return timedSend(request, host);
+		}
+		HedgedResponse hedged = new HedgedResponse();
+		timedSend(request, host).whenComplete(hedged::offer);
+		CompletableFuture.delayedExecutor(hedgeDelay, TimeUnit.MILLISECONDS).execute(() -> {
+			if (!hedged.result.isDone() && latencies.tryAcquireHedge(host, HEDGE_BUDGET) && hedged.startHedge()) {
+				timedSend(request, host).whenComplete(hedged::offer);
+			}
+		});
+		return hedged.result;
+	}
+
+	/* Manda el pedido y registra cuanto tardaron los headers (o el timeout, si no llegaron) */
+	private CompletableFuture<HttpResponse<InputStream>> timedSend(HttpRequest request, String host) {
+		long start = System.nanoTime();
+		return sharedClient(connectTimeout)
+				.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+				.whenComplete((response, error) -> {
+					Throwable cause = (error instanceof CompletionException) ? error.getCause() : error;
+					if (response != null || cause instanceof HttpTimeoutException) {
+						latencies.record(host, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+					}
+				});
+	}
+
+	/* Carrera entre el pedido original y su hedge */
+	private static class HedgedResponse {
+		final CompletableFuture<HttpResponse<InputStream>> result = new CompletableFuture<>();
+		private int inFlight = 1;
+		private Throwable firstError;
+
+		synchronized boolean startHedge() {
+			if (inFlight == 0) {
+				return false; // El original ya fallo y el error se entrego
+			}
+			inFlight++;
+			return true;
+		}
+
+		void offer(HttpResponse<InputStream> response, Throwable error) {
+			Throwable failure = null;
+			synchronized (this) {
+				inFlight--;
+				if (response == null) {
+					if (firstError == null) {
+						firstError = (error instanceof CompletionException) ? error.getCause() : error;
+					}
+					if (inFlight == 0) {
+						failure = firstError;
+					}
+				}
+			}
+			if (response != null) {
+				if (!result.complete(response)) {
+					closeQuietly(response.body()); // Perdio la carrera: libera la conexion
+				}
+			} else if (failure != null) {
+				result.completeExceptionally(failure);
+			}
+		}
+	}
+
+	private static void closeQuietly(InputStream body) {
+		try {
+			body.close();
+		} catch (IOException e) {
+			// Nada: es el cuerpo de una respuesta descartada
+		}
+	}
+
+	/**
+	 * Convierte la respuesta en el cuerpo a entregar al parser: desde el cache si es un 304,
+	 * o desde la red (copiandolo al cache mientras se lee) si es un 200.
+	 */
+	private FeedResponse toFeedResponse(HttpResponse<InputStream> response, String urlFeed, FeedCache.Entry cached)
+			throws RequestException, IOException {
+		int status = response.statusCode();
+		if (status == 304 && cached != null) {
+			response.body().close();
+			CountingInputStream decoded = new CountingInputStream(cached.openBody());
+			return new FeedResponse(urlFeed, decoded, cached.getCharset(), true, "identity",
+					null, decoded, this::recordTransfer);
+		}
+		if (status != 200) {
+			response.body().close(); // Libera la conexion para que vuelva al pool
+			throw new RequestException(status, urlFeed, retryAfterMillis(response));
+		}
+
+		String charset = charsetOf(response);
+		String encoding = response.headers().firstValue("Content-Encoding").orElse("identity")
+				.trim().toLowerCase(Locale.ROOT);
+		// El timeout del pedido solo llega hasta los headers: el cuerpo lleva el suyo por cada read
+		CountingInputStream wire = new CountingInputStream(
+				new ReadTimeoutInputStream(response.body(), readTimeout, urlFeed));
+		CountingInputStream decoded;
+		try {
+			decoded = new CountingInputStream(decode(wire, encoding, urlFeed));
+		} catch (IOException e) {
+			wire.close();
+			throw e;
+		}
+
+		// El cache guarda el cuerpo ya descomprimido
+		InputStream body = decoded;
+		if (cache != null) {
+			try {
+				body = cache.storing(urlFeed,
+						response.headers().firstValue("ETag").orElse(null),
+						response.headers().firstValue("Last-Modified").orElse(null),
+						charset, body);
+			} catch (IOException e) {
+				// Un cache que no se puede escribir no debe hacer fallar la descarga
+				System.err.println("No se pudo guardar en cache " + urlFeed + ": " + e.getMessage());
+			}
+		}
+		return new FeedResponse(urlFeed, body, charset, false, encoding, wire, decoded, this::recordTransfer);
+	}
+
+	/**
+	 * Descomprime el cuerpo a medida que se lee, segun el Content-Encoding de la respuesta.
+	 */
+	private static InputStream decode(InputStream wire, String encoding, String urlFeed) throws IOException {
+		switch (encoding) {
+			case "identity":
+			case "":
+				return wire;
+			case "gzip":
+			case "x-gzip":
+				return new GZIPInputStream(wire, 8192);
+			case "deflate": {
+				// "deflate" deberia venir con envoltorio zlib, pero algunos servidores lo mandan crudo
+				PushbackInputStream in = new PushbackInputStream(wire, 2);
+				int b0 = in.read();
+				int b1 = in.read();
+				if (b1 >= 0) {
+					in.unread(b1);
+				}
+				if (b0 >= 0) {
+					in.unread(b0);
+				}
+				boolean zlib = b0 >= 0 && b1 >= 0 && (b0 & 0x0F) == 8 && ((b0 << 8) | b1) % 31 == 0;
+				return new InflaterInputStream(in, new Inflater(!zlib), 8192);
+			}
+			default:
+				throw new IOException("Unsupported Content-Encoding '" + encoding + "' for " + urlFeed);
+		}
+	}
+
+	private void recordTransfer(TransferStats stats) {
+		transferStats.put(stats.getUrl(), stats);
+	}
+
+	/**
+	 * Bytes transferidos por cada feed que se leyo con este requester (el ultimo pedido por url).
+	 */
+	public Collection<TransferStats> getTransferStats() {
+		return transferStats.values();
+	}
+
+	/**
+	 * Extrae el parametro charset del Content-Type, si el servidor lo declaro.
+	 */
+	private static String charsetOf(HttpResponse<?> response) {
+		String contentType = response.headers().firstValue("Content-Type").orElse(null);
+		if (contentType == null) {
+			return null;
+		}
+		for (String param : contentType.split(";")) {
+			String p = param.trim();
+			if (p.toLowerCase(Locale.ROOT).startsWith("charset=")) {
+				String charset = p.substring("charset=".length()).replace("\"", "").trim();
+				try {
+					return Charset.isSupported(charset) ? charset : null;
+				} catch (IllegalArgumentException e) {
+					return null; // Nombre de charset invalido: que lo detecte el parser
+				}
+			}
+		}
+		return null;
+	}
+
+	private static String readFully(FeedResponse response) throws IOException {
+		try (response) {
+			Charset charset = (response.getCharset() != null)
+					? Charset.forName(response.getCharset())
+					: StandardCharsets.UTF_8;
+			return new String(response.getBody().readAllBytes(), charset);
+		}
+	}
+
+	private static String readFullyUnchecked(FeedResponse response) {
+		try {
+			return readFully(response);
+		} catch (IOException e) {
+			throw new CompletionException(e);
+		}
+	}
+
+	/**
+	 * Interpreta el header Retry-After, que puede venir en segundos o como fecha HTTP.
+	 * @return la espera en milisegundos, o -1 si no vino o no se puede interpretar
+	 */
+	private static long retryAfterMillis(HttpResponse<?> response) {
+		String value = response.headers().firstValue("Retry-After").orElse(null);
+		if (value == null) {
+			return -1;
+		}
+		value = value.trim();
+		try {
+			return Math.max(0, Long.parseLong(value) * 1000);
+		} catch (NumberFormatException e) {
+			// No son segundos: probar con el formato de fecha HTTP
+		}
+		try {
+			ZonedDateTime when = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+			return Math.max(0, when.toInstant().toEpochMilli() - System.currentTimeMillis());
+		} catch (DateTimeParseException e) {
+			return -1;
+		}
 	}
 
 	public static void main(String[] args) throws IOException, RequestException {
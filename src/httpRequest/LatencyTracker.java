@@ -0,0 +1,89 @@
+package httpRequest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/* Esta clase lleva, por host, el tiempo que tardaron en llegar los headers de los ultimos
+ * pedidos (una ventana circular de muestras) y a partir de eso estima el percentil 95.
+ * HttpRequester lo usa para ajustar el timeout de cada pedido al host y para decidir cuando
+ * mandar un pedido duplicado (hedge).
+ *
+ * Hay una unica instancia por JVM, asi las muestras de una corrida (o de todas las tareas de
+ * un executor de Spark) se acumulan en lugar de empezar de cero con cada HttpRequester.
+ * */
+public class LatencyTracker {
+
+	public static final int WINDOW = 64;
+	public static final int MIN_SAMPLES = 5;
+
+	private static final LatencyTracker shared = new LatencyTracker();
+
+	private final Map<String, HostLatency> hosts = new ConcurrentHashMap<>();
+
+	public static LatencyTracker shared() {
+		return shared;
+	}
+
+	public void record(String host, long millis) {
+		hosts.computeIfAbsent(host, h -> new HostLatency()).record(millis);
+	}
+
+	/**
+	 * Percentil 95 de los ultimos WINDOW pedidos al host.
+	 * @return la estimacion en milisegundos, o -1 si todavia hay menos de MIN_SAMPLES muestras
+	 */
+	public long p95(String host) {
+		HostLatency latency = hosts.get(host);
+		return (latency != null) ? latency.p95() : -1;
+	}
+
+	/**
+	 * Registra que se va a hacer un pedido al host y dice si se le puede sumar un hedge sin
+	 * pasar del presupuesto (maxFraction de los pedidos recientes del host, y siempre al menos uno).
+	 */
+	boolean tryAcquireHedge(String host, double maxFraction) {
+		return hosts.computeIfAbsent(host, h -> new HostLatency()).tryAcquireHedge(maxFraction);
+	}
+
+	void countRequest(String host) {
+		hosts.computeIfAbsent(host, h -> new HostLatency()).countRequest();
+	}
+
+	private static class HostLatency {
+		final long[] samples = new long[WINDOW];
+		int size = 0;
+		int next = 0;
+		long requests = 0;
+		long hedges = 0;
+
+		synchronized void record(long millis) {
+			samples[next] = millis;
+			next = (next + 1) % WINDOW;
+			if (size < WINDOW) {
+				size++;
+			}
+		}
+
+		synchronized long p95() {
+			if (size < MIN_SAMPLES) {
+				return -1;
+			}
+			long[] sorted = Arrays.copyOf(samples, size);
+			Arrays.sort(sorted);
+			return sorted[(int) Math.ceil(0.95 * size) - 1];
+		}
+
+		synchronized void countRequest() {
+			requests++;
+		}
+
+		synchronized boolean tryAcquireHedge(double maxFraction) {
+			if (hedges + 1 > maxFraction * requests + 1) {
+				return false;
+			}
+			hedges++;
+			return true;
+		}
+	}
+}
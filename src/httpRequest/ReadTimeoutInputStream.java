@@ -0,0 +1,137 @@
+package httpRequest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/* Cuerpo de una respuesta con timeout de lectura, como el setReadTimeout de HttpURLConnection:
+ * si un read() se queda bloqueado mas de timeoutMillis sin recibir nada se cierra el stream
+ * (eso desbloquea al parser) y el read falla con SocketTimeoutException. El timeout de
+ * HttpRequest solo cubre la espera de los headers, asi que sin esto un servidor que deja de
+ * mandar el cuerpo a mitad de camino retiene el hilo del parser para siempre.
+ *
+ * Un solo hilo revisa todos los cuerpos abiertos: cada stream tiene una tarea programada que,
+ * si el read en curso todavia no vencio, se vuelve a programar para cuando venceria.
+ * */
+class ReadTimeoutInputStream extends FilterInputStream {
+
+	private static final ScheduledThreadPoolExecutor watchdog = newWatchdog();
+
+	private final long timeoutNanos;
+	private final String url;
+	// Momento en que empezo el read en curso, o 0 si no hay ninguno
+	private volatile long blockedSince = 0;
+	private volatile boolean timedOut = false;
+	private volatile boolean closed = false;
+	private ScheduledFuture<?> check;
+
+	ReadTimeoutInputStream(InputStream in, long timeoutMillis, String url) {
+		super(in);
+		this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		this.url = url;
+		schedule(timeoutNanos);
+	}
+
+	@Override
+	public int read() throws IOException {
+		begin();
+		try {
+			return super.read();
+		} catch (IOException e) {
+			throw timedOut ? timeout() : e;
+		} finally {
+			end();
+		}
+	}
+
+	@Override
+	public int read(byte[] buf, int off, int len) throws IOException {
+		begin();
+		try {
+			return super.read(buf, off, len);
+		} catch (IOException e) {
+			throw timedOut ? timeout() : e;
+		} finally {
+			end();
+		}
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		begin();
+		try {
+			return super.skip(n);
+		} catch (IOException e) {
+			throw timedOut ? timeout() : e;
+		} finally {
+			end();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			closed = true;
+			if (check != null) {
+				check.cancel(false);
+			}
+		}
+		super.close();
+	}
+
+	private void begin() throws IOException {
+		if (timedOut) {
+			throw timeout();
+		}
+		blockedSince = System.nanoTime();
+	}
+
+	private void end() {
+		blockedSince = 0;
+	}
+
+	private SocketTimeoutException timeout() {
+		return new SocketTimeoutException("Read timed out after "
+				+ TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms: " + url);
+	}
+
+	private synchronized void schedule(long delayNanos) {
+		if (!closed) {
+			check = watchdog.schedule(this::checkDeadline, delayNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	// Corre en el hilo del watchdog
+	private void checkDeadline() {
+		long since = blockedSince;
+		if (since == 0) {
+			schedule(timeoutNanos);
+			return;
+		}
+		long remaining = timeoutNanos - (System.nanoTime() - since);
+		if (remaining > 0) {
+			schedule(remaining);
+			return;
+		}
+		timedOut = true;
+		try {
+			in.close();
+		} catch (IOException e) {
+			// Nada: el read bloqueado va a fallar igual
+		}
+	}
+
+	private static ScheduledThreadPoolExecutor newWatchdog() {
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread t = new Thread(runnable, "http-read-timeout");
+			t.setDaemon(true);
+			return t;
+		});
+		executor.setRemoveOnCancelPolicy(true);
+		return executor;
+	}
+}
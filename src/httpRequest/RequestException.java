@@ -1,7 +1,32 @@
 package httpRequest;
 
 public class RequestException extends Exception {
+	private final int status;
+	private final long retryAfterMillis;
+
 	public RequestException(int status, String url){
+		this(status, url, -1);
+	}
+
+	/**
+	 * @param retryAfterMillis espera pedida por el servidor via Retry-After, o -1 si no mando ninguna
+	 */
+	public RequestException(int status, String url, long retryAfterMillis){
 		super("status code: " + Integer.toString(status) + " url: " + url);
+		this.status = status;
+		this.retryAfterMillis = retryAfterMillis;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public long getRetryAfterMillis() {
+		return retryAfterMillis;
+	}
+
+	/* 429 y 503 indican que el servidor nos esta limitando: vale la pena reintentar mas tarde */
+	public boolean isThrottled() {
+		return status == 429 || status == 503;
 	}
 }
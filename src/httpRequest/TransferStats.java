@@ -0,0 +1,71 @@
+package httpRequest;
+
+import java.util.Collection;
+
+/* Esta clase registra cuantos bytes de un feed viajaron por la red y cuantos ocupa el cuerpo
+ * ya descomprimido, para poder ver cuanto ahorra la compresion (o el cache, si fue un 304).
+ * */
+public class TransferStats {
+
+	private final String url;
+	private final String contentEncoding;
+	private final long wireBytes;
+	private final long bodyBytes;
+	private final boolean fromCache;
+
+	public TransferStats(String url, String contentEncoding, long wireBytes, long bodyBytes, boolean fromCache) {
+		this.url = url;
+		this.contentEncoding = contentEncoding;
+		this.wireBytes = wireBytes;
+		this.bodyBytes = bodyBytes;
+		this.fromCache = fromCache;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	/* gzip, deflate o identity */
+	public String getContentEncoding() {
+		return contentEncoding;
+	}
+
+	/* Bytes del cuerpo recibidos por la red (0 si salio del cache) */
+	public long getWireBytes() {
+		return wireBytes;
+	}
+
+	/* Bytes del cuerpo descomprimido que leyo el parser */
+	public long getBodyBytes() {
+		return bodyBytes;
+	}
+
+	public boolean isFromCache() {
+		return fromCache;
+	}
+
+	@Override
+	public String toString() {
+		String source = fromCache ? "cache" : contentEncoding;
+		return url + ": " + wireBytes + " bytes por la red, " + bodyBytes + " sin comprimir (" + source + ")";
+	}
+
+	/**
+	 * Imprime el total de bytes transferidos contra el total sin comprimir.
+	 * @param perFeed si es true imprime tambien una linea por feed
+	 */
+	public static void printSummary(Collection<TransferStats> stats, boolean perFeed) {
+		long wire = 0;
+		long body = 0;
+		for (TransferStats s : stats) {
+			wire += s.getWireBytes();
+			body += s.getBodyBytes();
+			if (perFeed) {
+				System.out.println("    " + s);
+			}
+		}
+		long saved = (body > 0) ? Math.round(100.0 * (body - wire) / body) : 0;
+		System.out.println("Feeds descargados: " + stats.size() + ", " + wire + " bytes por la red para "
+				+ body + " bytes de contenido (" + saved + "% ahorrado)");
+	}
+}
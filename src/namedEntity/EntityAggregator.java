@@ -0,0 +1,143 @@
+package namedEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import namedEntity.categories.Category;
+import namedEntity.topics.Topic;
+
+/* Esta clase suma las frecuencias de las entidades de muchos articulos, agrupando por
+ * (nombre, categoria). Cada par distinto recibe un id denso la primera vez que aparece y su
+ * frecuencia se acumula en un int[]; la tabla que va de (nombre, categoria) al id es una tabla
+ * hash abierta sobre arreglos. Asi sumar una entidad no crea ningun objeto: los NamedEntity se
+ * arman solo al pedir el resultado (ver sortedByFrequency).
+ *
+ * El topico de cada par es el de la primera entidad que se sumo, como en la tabla que armaba
+ * FeedReaderMain. No es thread-safe: un agregador por hilo (o por particion de Spark).
+ * */
+public class EntityAggregator {
+
+	private static final int EMPTY = -1;
+
+	// Datos de cada par, indexados por id
+	private String[] names = new String[64];
+	private Category[] categories = new Category[64];
+	private Topic[] topics = new Topic[64];
+	private int[] hashes = new int[64];
+	private int[] counts = new int[64];
+	private int size = 0;
+
+	// Tabla hash abierta: cada slot tiene el id del par, o EMPTY
+	private int[] slots = newSlots(128);
+
+	public void add(NamedEntity entity) {
+		add(entity.getName(), entity.getCategory(), entity.getTopic(), entity.getFrequency());
+	}
+
+	/* Suma frequency al par (name, category); si es nuevo se queda con este topico */
+	public void add(String name, Category category, Topic topic, int frequency) {
+		int hash = 31 * name.hashCode() + ((category != null) ? category.hashCode() : 0);
+		int mask = slots.length - 1;
+		int slot = hash & mask;
+		for (int id = slots[slot]; id != EMPTY; id = slots[slot]) {
+			if (hashes[id] == hash && sameKey(id, name, category)) {
+				counts[id] += frequency;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		if (size == names.length) {
+			grow();
+		}
+		int id = size++;
+		names[id] = name;
+		categories[id] = category;
+		topics[id] = topic;
+		hashes[id] = hash;
+		counts[id] = frequency;
+		slots[slot] = id;
+		if (2 * size > slots.length) {
+			rehash(slots.length * 2);
+		}
+	}
+
+	/* Suma todos los pares de otro agregador */
+	public void addAll(EntityAggregator other) {
+		for (int id = 0; id < other.size; id++) {
+			add(other.names[id], other.categories[id], other.topics[id], other.counts[id]);
+		}
+	}
+
+	// Las categorias son canonicas (Category.intern), asi que casi siempre alcanza con ==
+	private boolean sameKey(int id, String name, Category category) {
+		Category stored = categories[id];
+		return (stored == category || (stored != null && stored.equals(category))) && names[id].equals(name);
+	}
+
+	private void grow() {
+		int capacity = names.length * 2;
+		names = Arrays.copyOf(names, capacity);
+		categories = Arrays.copyOf(categories, capacity);
+		topics = Arrays.copyOf(topics, capacity);
+		hashes = Arrays.copyOf(hashes, capacity);
+		counts = Arrays.copyOf(counts, capacity);
+	}
+
+	private void rehash(int capacity) {
+		slots = newSlots(capacity);
+		int mask = capacity - 1;
+		for (int id = 0; id < size; id++) {
+			int slot = hashes[id] & mask;
+			while (slots[slot] != EMPTY) {
+				slot = (slot + 1) & mask;
+			}
+			slots[slot] = id;
+		}
+	}
+
+	private static int[] newSlots(int capacity) {
+		int[] slots = new int[capacity];
+		Arrays.fill(slots, EMPTY);
+		return slots;
+	}
+
+	/* Cantidad de pares (nombre, categoria) distintos */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/* Las entidades agregadas en el orden en que aparecieron por primera vez */
+	public List<NamedEntity> entities() {
+		List<NamedEntity> entities = new ArrayList<>(size);
+		for (int id = 0; id < size; id++) {
+			entities.add(new NamedEntity(names[id], counts[id], categories[id], topics[id]));
+		}
+		return entities;
+	}
+
+	/**
+	 * Las entidades agregadas de mayor a menor frecuencia; las de igual frecuencia quedan en
+	 * el orden en que aparecieron por primera vez.
+	 */
+	public List<NamedEntity> sortedByFrequency() {
+		// Se ordena un long por par: frecuencia invertida en la parte alta, id en la baja
+		long[] order = new long[size];
+		for (int id = 0; id < size; id++) {
+			order[id] = ((long) (Integer.MAX_VALUE - counts[id]) << 32) | id;
+		}
+		Arrays.sort(order);
+
+		List<NamedEntity> entities = new ArrayList<>(size);
+		for (long key : order) {
+			int id = (int) key;
+			entities.add(new NamedEntity(names[id], counts[id], categories[id], topics[id]));
+		}
+		return entities;
+	}
+}
@@ -0,0 +1,120 @@
+package namedEntity;
+
+import java.util.Arrays;
+
+/* Esta clase separa en palabras el texto de un articulo para buscarle entidades nombradas.
+ * Equivale a concatenar titulo + " " + texto, borrar los signos de REMOVED_CHARS y hacer
+ * split(" "), pero en una sola pasada: los caracteres que quedan se copian a un buffer y cada
+ * palabra es un rango [start, end) de ese buffer, sin crear un String por palabra.
+ *
+ * Un Tokenizer se reutiliza de un articulo al siguiente (no es thread-safe: uno por hilo).
+ * */
+public class Tokenizer {
+
+	// Signos que se descartan antes de separar las palabras
+	public static final String REMOVED_CHARS = ".,;:()'\u2019!?\n";
+
+	private char[] text = new char[1024];
+	private int length = 0;
+	private int[] starts = new int[128];
+	private int[] ends = new int[128];
+	private int count = 0;
+
+	/**
+	 * Separa titulo + " " + texto. Las palabras vacias (por espacios seguidos) se conservan
+	 * como en split(" "), salvo las del final.
+	 */
+	public void tokenize(String title, String body) {
+		String first = String.valueOf(title);
+		String second = String.valueOf(body);
+		ensureTextCapacity(first.length() + 1 + second.length());
+		length = 0;
+		count = 0;
+
+		int tokenStart = 0;
+		int lastNonEmpty = 0;
+		for (int part = 0; part < 3; part++) {
+			String s = (part == 0) ? first : (part == 1) ? " " : second;
+			for (int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				if (c == ' ') {
+					addToken(tokenStart, length);
+					if (length > tokenStart) {
+						lastNonEmpty = count;
+					}
+					tokenStart = length;
+				} else if (!isRemoved(c)) {
+					text[length++] = c;
+				}
+			}
+		}
+		addToken(tokenStart, length);
+		if (length > tokenStart) {
+			lastNonEmpty = count;
+		}
+		count = lastNonEmpty; // split descarta las palabras vacias del final
+	}
+
+	private static boolean isRemoved(char c) {
+		return REMOVED_CHARS.indexOf(c) >= 0;
+	}
+
+	private void addToken(int start, int end) {
+		if (count == starts.length) {
+			starts = Arrays.copyOf(starts, count * 2);
+			ends = Arrays.copyOf(ends, count * 2);
+		}
+		starts[count] = start;
+		ends[count] = end;
+		count++;
+	}
+
+	private void ensureTextCapacity(int capacity) {
+		if (text.length < capacity) {
+			text = new char[Math.max(capacity, text.length * 2)];
+		}
+	}
+
+	/* Cantidad de palabras */
+	public int size() {
+		return count;
+	}
+
+	/* Buffer con el texto ya filtrado; las palabras son rangos de este arreglo */
+	public char[] text() {
+		return text;
+	}
+
+	/* Inicio de cada palabra en text(); validos los primeros size() */
+	public int[] starts() {
+		return starts;
+	}
+
+	/* Fin (exclusivo) de cada palabra en text(); validos los primeros size() */
+	public int[] ends() {
+		return ends;
+	}
+
+	public int start(int token) {
+		return starts[token];
+	}
+
+	public int end(int token) {
+		return ends[token];
+	}
+
+	/* true si la palabra es vacia o solo tiene espacios en blanco (como trim().isEmpty()) */
+	public boolean isBlank(int token) {
+		for (int i = starts[token]; i < ends[token]; i++) {
+			if (text[i] > ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/* La palabra como String (crea uno nuevo) */
+	public String token(int token) {
+		return new String(text, starts[token], ends[token] - starts[token]);
+	}
+}
@@ -1,17 +1,98 @@
 package namedEntity.categories;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
+/* Las categorias son valores inmutables: dos categorias son iguales si son de la misma clase y
+ * tienen los mismos datos. Para no tener una copia por entidad se comparte una instancia
+ * canonica por valor (ver intern), tambien despues de deserializarlas.
+ * */
 public abstract class Category implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    private String atom;
+    // Instancia canonica de cada valor
+    private static final Map<Category, Category> pool = new ConcurrentHashMap<Category, Category>();
+
+    private final String atom;
+    private transient int hash;
 
     public Category(String embryo){
         this.atom = embryo;
     }
 
+    /* Texto con el que se creo la categoria (por ejemplo, la descripcion de una organizacion) */
+    public String getAtom() {
+        return atom;
+    }
+
     public abstract String getCategoryName();
 
     public abstract boolean isOther();
-}
\ No newline at end of file
+
+    /**
+     * Devuelve la instancia canonica con el mismo valor que la dada (la primera que se interno).
+     */
+    @SuppressWarnings("unchecked")
+    public static <C extends Category> C intern(C category) {
+        Category canonical = pool.putIfAbsent(category, category);
+        return (canonical != null) ? (C) canonical : category;
+    }
+
+    /**
+     * Copia inmutable del mapa con todas sus categorias reemplazadas por las canonicas.
+     */
+    public static <K> Map<K, Category> internValues(Map<K, ? extends Category> map) {
+        Map<K, Category> interned = new HashMap<K, Category>();
+        for (Map.Entry<K, ? extends Category> entry : map.entrySet()) {
+            interned.put(entry.getKey(), intern(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(interned);
+    }
+
+    /* Al deserializar (por ejemplo, en el shuffle de Spark) se vuelve a la instancia canonica */
+    protected Object readResolve() throws ObjectStreamException {
+        return intern(this);
+    }
+
+    /**
+     * Datos propios de la subclase que, ademas de la clase y el atom, definen el valor.
+     */
+    protected List<Object> details() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Los mismos datos que details() como texto, uno por campo de cada parte (una parte que
+     * falta deja sus campos en null). Junto con la clase y el atom definen el valor, para quien
+     * lo necesita en columnas planas.
+     */
+    public List<String> detailValues() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || o.getClass() != this.getClass()) {
+            return false;
+        }
+        Category other = (Category) o;
+        return Objects.equals(this.atom, other.atom) && this.details().equals(other.details());
+    }
+
+    @Override
+    public int hashCode() {
+        if (hash == 0) {
+            hash = Objects.hash(getClass().getName(), atom, details());
+        }
+        return hash;
+    }
+}
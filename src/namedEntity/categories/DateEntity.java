@@ -1,8 +1,8 @@
 package namedEntity.categories;
 
 public class DateEntity extends Category {
-    String origin;
-    String canonical;
+    final String origin;
+    final String canonical;
 
     public DateEntity(String origin, String canonical){
         super(origin);
@@ -2,9 +2,9 @@ package namedEntity.categories;
 import java.util.Random;
 
 public class Event extends Category {
-    String canonical;
-    String date;
-    boolean recurrente;
+    final String canonical;
+    final String date;
+    final boolean recurrente;
     
     // aca va un mapa con la fecha de eventos importantes
 
@@ -3,9 +3,9 @@ import namedEntity.NamedEntity;
 import namedEntity.topics.Topic;
 
 public class Organization extends Category {
-    String canonical;
-    int members;
-    String type;
+    final String canonical;
+    final int members;
+    final String type;
 
     // aca va un mapa de organizaciones con sus datos
 
@@ -2,7 +2,10 @@ package namedEntity.categories;
 
 public class Other extends Category {
 
-    String comment;
+    // Categoria de las palabras que no estan en el diccionario
+    public static final Other NO_CATEGORY = Category.intern(new Other("No category found"));
+
+    final String comment;
 
     public Other(String comment){
         super(comment);
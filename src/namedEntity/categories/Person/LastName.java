@@ -1,8 +1,12 @@
 package namedEntity.categories.Person;
 
-public class LastName {
+import java.io.Serializable;
+import java.util.Objects;
 
-    String lastName;
+public class LastName implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final String lastName;
 
     public LastName(String apellido){
         this.lastName = apellido;
@@ -11,4 +15,14 @@ public class LastName {
     public String getLastName() {
         return this.lastName;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof LastName && Objects.equals(lastName, ((LastName) o).lastName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(lastName);
+    }
+}
@@ -1,8 +1,12 @@
 package namedEntity.categories.Person;
 
-public class Name {
+import java.io.Serializable;
+import java.util.Objects;
 
-    private String name;
+public class Name implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
 
     public Name(String nomme){
         this.name = nomme;
@@ -11,4 +15,14 @@ public class Name {
     public String getName() {
         return this.name;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Name && Objects.equals(name, ((Name) o).name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(name);
+    }
+}
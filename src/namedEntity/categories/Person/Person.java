@@ -1,12 +1,14 @@
 package namedEntity.categories.Person;
+import java.util.Arrays;
+import java.util.List;
 import namedEntity.categories.Category;
 
 public class Person extends Category {
     static int c = 0;
-    private LastName lastName;
-    private Name name;
-    private Title title;
-    int id;
+    private final LastName lastName;
+    private final Name name;
+    private final Title title;
+    final int id;
 
     public Person(LastName lastName, Name name, Title title) {
         super("Person");
@@ -17,6 +19,18 @@ public class Person extends Category {
         this.title = title;
     }
 
+    public LastName getLastName() {
+        return lastName;
+    }
+
+    public Name getName() {
+        return name;
+    }
+
+    public Title getTitle() {
+        return title;
+    }
+
     public String getCategoryName() {
         return "Person";
     }
@@ -24,4 +38,19 @@ public class Person extends Category {
     public boolean isOther () {
         return false;
     }
+
+    // El id es solo un contador de creacion: no forma parte del valor
+    @Override
+    protected List<Object> details() {
+        return Arrays.asList(lastName, name, title);
+    }
+
+    @Override
+    public List<String> detailValues() {
+        return Arrays.asList(
+            (lastName != null) ? lastName.getLastName() : null,
+            (name != null) ? name.getName() : null,
+            (title != null) ? title.getOrigen() : null,
+            (title != null) ? title.getCanonical() : null);
+    }
 }
@@ -1,10 +1,14 @@
 package namedEntity.categories.Person;
 
-public class Title {
+import java.io.Serializable;
+import java.util.Objects;
 
-    String canonical;
-    String origen;
-    boolean profesional;
+public class Title implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final String canonical;
+    final String origen;
+    final boolean profesional;
 
     //aca va un mapa que dado un titulo canonc
 
@@ -14,4 +18,25 @@ public class Title {
         this.profesional = true;
     }
 
-}
\ No newline at end of file
+    public String getOrigen() {
+        return origen;
+    }
+
+    public String getCanonical() {
+        return canonical;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Title)) {
+            return false;
+        }
+        Title other = (Title) o;
+        return Objects.equals(canonical, other.canonical) && Objects.equals(origen, other.origen);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(canonical, origen);
+    }
+}
@@ -1,10 +1,28 @@
 package namedEntity.categories.Place;
 
-public class Address {
+import java.io.Serializable;
+import java.util.Objects;
 
-    String canonical;
+public class Address implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final String canonical;
 
     public Address(String canonical){
         this.canonical = canonical;
     }
-}
\ No newline at end of file
+
+    public String getCanonical() {
+        return canonical;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Address && Objects.equals(canonical, ((Address) o).canonical);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(canonical);
+    }
+}
@@ -1,16 +1,19 @@
 package namedEntity.categories.Place;
 
+import java.io.Serializable;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
-public class City {
+public class City implements Serializable {
+    private static final long serialVersionUID = 1L;
 
-    String canonical;
-    String pais;
-    String capital;
-    int poblacion;
+    final String canonical;
+    final String pais;
+    final String capital;
+    final int poblacion;
 
     public City(String canonical) {
         this.canonical = canonical;
@@ -19,6 +22,10 @@ public class City {
         this.capital = getCountryAndCapital(canonical).get(1);
     }
 
+    public String getCanonical() {
+        return canonical;
+    }
+
     // Static map: city name -> [country, capital]
     private static final Map<String, List<String>> cityTable = new HashMap<>();
 
@@ -51,4 +58,14 @@ public class City {
         return res;
     }
 
+    // El resto de los datos sale del nombre
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof City && Objects.equals(canonical, ((City) o).canonical);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(canonical);
+    }
 }
\ No newline at end of file
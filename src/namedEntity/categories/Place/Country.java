@@ -1,12 +1,31 @@
 package namedEntity.categories.Place;
 
-public class Country {
+import java.io.Serializable;
+import java.util.Objects;
 
-    String canonical;
-    int poblacion;
+public class Country implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final String canonical;
+    final int poblacion;
 
     public Country(String canonical){
         this.canonical = canonical;
         this.poblacion = 100000 * canonical.length(); // xd
     }
-}
\ No newline at end of file
+
+    public String getCanonical() {
+        return canonical;
+    }
+
+    // El resto de los datos sale del nombre
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Country && Objects.equals(canonical, ((Country) o).canonical);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(canonical);
+    }
+}
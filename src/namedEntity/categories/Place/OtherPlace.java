@@ -4,7 +4,7 @@ import namedEntity.categories.Category;
 
 public class OtherPlace extends Category {
 
-    String canonical;
+    final String canonical;
 
     public OtherPlace(String canonical){
         super(canonical);
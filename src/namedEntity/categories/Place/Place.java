@@ -1,12 +1,14 @@
 package namedEntity.categories.Place;
+import java.util.Arrays;
+import java.util.List;
 import namedEntity.categories.Category;
 
 public class Place extends Category {
 
-    String canonical;
-    Address address;
-    City city;
-    Country country;
+    final String canonical;
+    final Address address;
+    final City city;
+    final Country country;
 
     public Place(String canonical, Address address, City city, Country country) {
         super(canonical);
@@ -16,6 +18,18 @@ public class Place extends Category {
         this.country = country;
     }
 
+    public Address getAddress() {
+        return address;
+    }
+
+    public City getCity() {
+        return city;
+    }
+
+    public Country getCountry() {
+        return country;
+    }
+
     public String getCategoryName() {
         return "Place";
     }
@@ -23,4 +37,17 @@ public class Place extends Category {
     public boolean isOther () {
         return false;
     }
+
+    @Override
+    protected List<Object> details() {
+        return Arrays.asList(address, city, country);
+    }
+
+    @Override
+    public List<String> detailValues() {
+        return Arrays.asList(
+            (address != null) ? address.getCanonical() : null,
+            (city != null) ? city.getCanonical() : null,
+            (country != null) ? country.getCanonical() : null);
+    }
 }
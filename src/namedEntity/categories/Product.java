@@ -1,8 +1,8 @@
 package namedEntity.categories;
 
 public class Product extends Category {
-    String prod;
-    Boolean comer;
+    final String prod;
+    final Boolean comer;
     public Product(String productito){
     
         super(productito);
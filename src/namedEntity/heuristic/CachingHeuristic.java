@@ -0,0 +1,161 @@
+package namedEntity.heuristic;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import namedEntity.categories.Category;
+import namedEntity.topics.Topic;
+
+/* Heuristica que recuerda las respuestas de otra: isEntity, getCanonical, getCategory y getTopic
+ * se calculan una vez por palabra (o frase) y despues se sacan de un cache acotado con admision
+ * W-TinyLFU (ver TinyLfuCache). El texto de las noticias repite mucho las mismas palabras, asi
+ * que una heuristica cara termina evaluandose mas o menos una vez por palabra distinta.
+ *
+ * Para heuristicas baratas como QuickHeuristic el cache puede costar mas de lo que ahorra: por
+ * eso solo se usa si se pide con feedreader.heuristicCache (ver HeuristicConfig).
+ * */
+public class CachingHeuristic extends Heuristic {
+	private static final long serialVersionUID = 1L;
+
+	// Respuestas calculadas para una palabra; cada una se completa la primera vez que se pide.
+	// Si dos hilos la calculan a la vez escriben el mismo valor, asi que no hace falta un lock
+	private static final class Memo {
+		static final byte UNKNOWN = 0;
+		static final byte NOT_ENTITY = 1;
+		static final byte ENTITY = 2;
+
+		volatile byte entity = UNKNOWN;
+		volatile String canonical;
+		volatile Category category;
+		volatile Topic topic;
+	}
+
+	private final Heuristic delegate;
+	private final int maximumSize;
+	private transient TinyLfuCache<Memo> cache;
+	private transient LongAdder hits;
+	private transient LongAdder misses;
+
+	/**
+	 * @param maximumSize cantidad maxima de palabras recordadas
+	 */
+	public CachingHeuristic(Heuristic delegate, int maximumSize) {
+		super(delegate.getDictionary());
+		this.delegate = delegate;
+		this.maximumSize = maximumSize;
+		this.cache = new TinyLfuCache<>(maximumSize);
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+	}
+
+	public Heuristic getDelegate() {
+		return delegate;
+	}
+
+	public boolean isEntity(String word) {
+		Memo memo = memo(word);
+		byte entity = memo.entity;
+		if (entity == Memo.UNKNOWN) {
+			entity = delegate.isEntity(word) ? Memo.ENTITY : Memo.NOT_ENTITY;
+			memo.entity = entity;
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+		return entity == Memo.ENTITY;
+	}
+
+	@Override
+	public boolean isEntity(char[] text, int start, int end) {
+		Memo memo = cache.get(text, start, end);
+		if (memo != null && memo.entity != Memo.UNKNOWN) {
+			hits.increment();
+			return memo.entity == Memo.ENTITY;
+		}
+		if (memo == null) {
+			memo = cache.putIfAbsent(new String(text, start, end - start), new Memo());
+		}
+		boolean entity = delegate.isEntity(text, start, end);
+		memo.entity = entity ? Memo.ENTITY : Memo.NOT_ENTITY;
+		misses.increment();
+		return entity;
+	}
+
+	@Override
+	public String getCanonical(String origin) {
+		Memo memo = memo(origin);
+		String canonical = memo.canonical;
+		if (canonical == null) {
+			canonical = delegate.getCanonical(origin);
+			memo.canonical = canonical;
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+		return canonical;
+	}
+
+	@Override
+	public Category getCategory(String entity) {
+		Memo memo = memo(entity);
+		Category category = memo.category;
+		if (category == null) {
+			category = delegate.getCategory(entity);
+			memo.category = category;
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+		return category;
+	}
+
+	@Override
+	public Topic getTopic(String entity) {
+		Memo memo = memo(entity);
+		Topic topic = memo.topic;
+		if (topic == null) {
+			topic = delegate.getTopic(entity);
+			memo.topic = topic;
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+		return topic;
+	}
+
+	private Memo memo(String key) {
+		Memo memo = cache.get(key);
+		return (memo != null) ? memo : cache.putIfAbsent(key, new Memo());
+	}
+
+	/* Respuestas sacadas del cache */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/* Respuestas que hubo que pedirle a la heuristica de abajo */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/* Palabras que se sacaron del cache para hacer lugar */
+	public long getEvictionCount() {
+		return cache.evictionCount();
+	}
+
+	public double getHitRate() {
+		long hits = getHitCount();
+		long total = hits + getMissCount();
+		return (total == 0) ? 0.0 : (double) hits / total;
+	}
+
+	/* Resumen de una linea con el uso del cache */
+	public String statsSummary() {
+		return String.format("Cache de heuristica: %.1f%% de aciertos (%d aciertos, %d calculos, %d palabras, %d desalojadas)",
+				100 * getHitRate(), getHitCount(), getMissCount(), cache.size(), getEvictionCount());
+	}
+
+	// Al deserializar se arranca con el cache vacio
+	private Object readResolve() {
+		return new CachingHeuristic(delegate, maximumSize);
+	}
+}
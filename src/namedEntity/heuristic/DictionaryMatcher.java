@@ -0,0 +1,169 @@
+package namedEntity.heuristic;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import namedEntity.Tokenizer;
+import namedEntity.categories.Category;
+import namedEntity.heuristic.EntityDictionary.Entry;
+
+/* Esta clase compila los diccionarios de BuiltinDictionary en un trie a nivel de palabras.
+ * Cada frase reconocible (una clave de categoryMap o de canonicalMap cuya forma canonica tiene
+ * una categoria que no es Other) queda como un camino de hasta MAX_TOKENS palabras, y su nodo
+ * final guarda la forma canonica y la categoria ya resueltas.
+ *
+ * Asi, en vez de armar los n-gramas de 4, 3, 2 y 1 palabras en cada posicion del texto y
+ * buscar cada uno en los mapas, se recorre el trie desde la palabra actual una sola vez y se
+ * obtienen todas las frases del diccionario que empiezan ahi. Las palabras se buscan
+ * directamente como rangos del buffer del Tokenizer, sin crear Strings.
+ * */
+public class DictionaryMatcher implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/* Nodo del trie: sus hijos van en una tabla hash abierta indexada por la palabra */
+	private static class Node implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		String[] keys = new String[2];
+		Node[] children = new Node[2];
+		int size = 0;
+		Entry entry;
+
+		Node child(char[] text, int start, int end) {
+			int mask = keys.length - 1;
+			for (int slot = hash(text, start, end) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+				if (sameChars(keys[slot], text, start, end)) {
+					return children[slot];
+				}
+			}
+			return null;
+		}
+
+		Node childOrCreate(String token) {
+			char[] chars = token.toCharArray();
+			Node child = child(chars, 0, chars.length);
+			if (child != null) {
+				return child;
+			}
+			if (2 * (size + 1) > keys.length) {
+				grow();
+			}
+			child = new Node();
+			put(token, child);
+			return child;
+		}
+
+		private void put(String token, Node child) {
+			int mask = keys.length - 1;
+			int slot = token.hashCode() & mask;
+			while (keys[slot] != null) {
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = token;
+			children[slot] = child;
+			size++;
+		}
+
+		private void grow() {
+			String[] oldKeys = keys;
+			Node[] oldChildren = children;
+			keys = new String[oldKeys.length * 2];
+			children = new Node[oldKeys.length * 2];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != null) {
+					put(oldKeys[i], oldChildren[i]);
+				}
+			}
+		}
+
+		// Mismo hash que String.hashCode, calculado sobre el rango
+		private static int hash(char[] text, int start, int end) {
+			int h = 0;
+			for (int i = start; i < end; i++) {
+				h = 31 * h + text[i];
+			}
+			return h;
+		}
+
+		private static boolean sameChars(String key, char[] text, int start, int end) {
+			if (key.length() != end - start) {
+				return false;
+			}
+			for (int i = 0; i < key.length(); i++) {
+				if (key.charAt(i) != text[start + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private final Node root = new Node();
+	private int size = 0;
+
+	/**
+	 * Compila los diccionarios. Para cada frase se usa lo mismo que devolverian getCanonical y
+	 * getCategory de la heuristica: la forma canonica si la tiene, si no la frase misma.
+	 */
+	public static DictionaryMatcher build(Map<String, String> canonicalMap, Map<String, Category> categoryMap) {
+		DictionaryMatcher matcher = new DictionaryMatcher();
+		for (String phrase : categoryMap.keySet()) {
+			matcher.add(phrase, canonicalMap, categoryMap);
+		}
+		for (String phrase : canonicalMap.keySet()) {
+			matcher.add(phrase, canonicalMap, categoryMap);
+		}
+		return matcher;
+	}
+
+	private void add(String phrase, Map<String, String> canonicalMap, Map<String, Category> categoryMap) {
+		String canonical = canonicalMap.getOrDefault(phrase, phrase);
+		Category category = categoryMap.get(canonical);
+		if (category == null || category.isOther()) {
+			return;
+		}
+		String[] tokens = phrase.split(" ", -1);
+		if (tokens.length > EntityDictionary.MAX_TOKENS) {
+			return;
+		}
+		Node node = root;
+		for (String token : tokens) {
+			node = node.childOrCreate(token);
+		}
+		if (node.entry == null) {
+			node.entry = new Entry(phrase, canonical, category);
+			size++;
+		}
+	}
+
+	/* Cantidad de frases reconocibles */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Busca las frases del diccionario que empiezan en la palabra start del texto.
+	 *
+	 * @param found se llena con found[k - 1] = la frase de k palabras que empieza en start, o null
+	 *              si no hay; tiene que tener lugar para MAX_TOKENS
+	 * @return la cantidad de palabras de la frase mas larga encontrada (0 si no hay ninguna)
+	 */
+	public int matchAt(Tokenizer tokens, int start, Entry[] found) {
+		int longest = 0;
+		Node node = root;
+		char[] text = tokens.text();
+		int limit = Math.min(EntityDictionary.MAX_TOKENS, tokens.size() - start);
+		for (int k = 0; k < limit; k++) {
+			node = node.child(text, tokens.start(start + k), tokens.end(start + k));
+			if (node == null) {
+				break;
+			}
+			found[k] = node.entry;
+			if (node.entry != null) {
+				longest = k + 1;
+			}
+		}
+		return longest;
+	}
+}
@@ -0,0 +1,64 @@
+package namedEntity.heuristic;
+
+import java.io.Serializable;
+
+import namedEntity.Tokenizer;
+import namedEntity.categories.Category;
+import namedEntity.topics.Topic;
+
+/* Diccionario de entidades que consulta una heuristica: formas canonicas, categorias y topicos
+ * de las frases conocidas. Hay dos implementaciones: BuiltinDictionary, con los mapas que vienen
+ * en el codigo, y MappedGazetteer, que lee un archivo binario generado con GazetteerBuilder.
+ * */
+public interface EntityDictionary extends Serializable {
+
+	// El texto se recorre en n-gramas de hasta 4 palabras: frases mas largas nunca se buscan
+	int MAX_TOKENS = 4;
+
+	/* Frase reconocible del diccionario con su forma canonica y la categoria de esa forma */
+	class Entry implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final String phrase;
+		private final String canonical;
+		private final Category category;
+
+		public Entry(String phrase, String canonical, Category category) {
+			this.phrase = phrase;
+			this.canonical = canonical;
+			this.category = category;
+		}
+
+		/* La frase tal como aparece en el texto (la clave del diccionario) */
+		public String getPhrase() {
+			return phrase;
+		}
+
+		public String getCanonical() {
+			return canonical;
+		}
+
+		public Category getCategory() {
+			return category;
+		}
+	}
+
+	/* Forma canonica de la frase, o null si no tiene */
+	String getCanonical(String phrase);
+
+	/* Categoria de la entidad, o null si no esta en el diccionario */
+	Category getCategory(String entity);
+
+	/* Topico de la entidad, o null si no esta en el diccionario */
+	Topic getTopic(String entity);
+
+	/**
+	 * Busca las frases reconocibles (las que tienen una forma canonica con categoria distinta de
+	 * Other) que empiezan en la palabra start del texto.
+	 *
+	 * @param found se llena con found[k - 1] = la frase de k palabras que empieza en start, o null
+	 *              si no hay; tiene que tener lugar para MAX_TOKENS
+	 * @return la cantidad de palabras de la frase mas larga encontrada (0 si no hay ninguna)
+	 */
+	int matchAt(Tokenizer tokens, int start, Entry[] found);
+}
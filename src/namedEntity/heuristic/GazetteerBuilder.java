@@ -0,0 +1,332 @@
+package namedEntity.heuristic;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import namedEntity.categories.Category;
+import namedEntity.topics.Topic;
+
+/* Genera el archivo binario de MappedGazetteer a partir de una lista de entidades en TSV o JSON.
+ *
+ * TSV: una frase por linea, con las columnas separadas por tabs (las vacias o faltantes quedan
+ * sin valor; las lineas vacias y las que empiezan con # se ignoran):
+ *   phrase  canonical  category  categoryDescription  topic  topicDescription
+ * JSON: un arreglo de objetos con esas mismas claves.
+ *
+ * category es el nombre de la categoria (Person, Place, OtherPlace, Organization, Product,
+ * Event, Date u Other) y topic el del topico (Politics, Culture, Sports, OtherTopic u otro).
+ * Si una frase aparece varias veces, cada aparicion completa o reemplaza los datos anteriores.
+ *
+ * Uso:
+ *   GazetteerBuilder <entidades.tsv|entidades.json> <salida.gaz>
+ *   GazetteerBuilder --export <salida.tsv>   (escribe el diccionario de BuiltinDictionary en TSV)
+ * */
+public class GazetteerBuilder {
+
+	private static final String[] COLUMNS = { "phrase", "canonical", "category", "categoryDescription",
+			"topic", "topicDescription" };
+
+	/* Datos de una frase */
+	private static class Record {
+		final String phrase;
+		final byte[] key;
+		String canonical;
+		String category;
+		String categoryDescription;
+		String topic;
+		String topicDescription;
+
+		Record(String phrase) {
+			this.phrase = phrase;
+			this.key = phrase.getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	private final Map<String, Record> records = new HashMap<>();
+
+	public static void main(String[] args) {
+		try {
+			if (args.length == 2 && args[0].equals("--export")) {
+				exportBuiltin(Paths.get(args[1]));
+			} else if (args.length == 2) {
+				GazetteerBuilder builder = new GazetteerBuilder();
+				builder.read(Paths.get(args[0]));
+				builder.write(Paths.get(args[1]));
+				System.out.println("Gazetteer con " + builder.records.size() + " frases: " + args[1]);
+			} else {
+				System.out.println("Uso: GazetteerBuilder <entidades.tsv|entidades.json> <salida.gaz>");
+				System.out.println("     GazetteerBuilder --export <salida.tsv>");
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			System.err.println("No se pudo generar el gazetteer: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/* Agrega las frases del archivo; si termina en .json se lee como JSON, si no como TSV */
+	public void read(Path input) throws IOException {
+		if (input.toString().toLowerCase(Locale.ROOT).endsWith(".json")) {
+			JSONArray array = new JSONArray(Files.readString(input, StandardCharsets.UTF_8));
+			for (int i = 0; i < array.length(); i++) {
+				JSONObject object = array.getJSONObject(i);
+				String[] values = new String[COLUMNS.length];
+				for (int c = 0; c < COLUMNS.length; c++) {
+					values[c] = object.optString(COLUMNS[c], "");
+				}
+				add(values);
+			}
+			return;
+		}
+		try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				add(line.split("\t", -1));
+			}
+		}
+	}
+
+	/* Agrega una frase con los valores en el orden de COLUMNS */
+	public void add(String[] values) {
+		String phrase = column(values, 0);
+		if (phrase == null) {
+			return;
+		}
+		Record record = records.computeIfAbsent(phrase, Record::new);
+		if (column(values, 1) != null) {
+			record.canonical = column(values, 1);
+		}
+		if (column(values, 2) != null) {
+			// Se crea la categoria para validar el nombre antes de escribir el archivo
+			MappedGazetteer.newCategory(column(values, 2), column(values, 3));
+			record.category = column(values, 2);
+			record.categoryDescription = column(values, 3);
+		}
+		if (column(values, 4) != null) {
+			record.topic = column(values, 4);
+			record.topicDescription = column(values, 5);
+		}
+	}
+
+	private static String column(String[] values, int index) {
+		return (index < values.length && !values[index].isEmpty()) ? values[index] : null;
+	}
+
+	/* Escribe el archivo con el formato descripto en MappedGazetteer */
+	public void write(Path output) throws IOException {
+		// Las frases en el orden de sus bytes UTF-8, asi el mismo diccionario da el mismo archivo
+		List<Record> sorted = new ArrayList<>(records.values());
+		sorted.sort((a, b) -> Arrays.compareUnsigned(a.key, b.key));
+
+		StringPool pool = new StringPool();
+		Map<List<String>, Integer> categoryIds = new HashMap<>();
+		Map<List<String>, Integer> topicIds = new HashMap<>();
+		List<List<String>> categoryTable = new ArrayList<>();
+		List<List<String>> topicTable = new ArrayList<>();
+		int[] entries = new int[sorted.size() * MappedGazetteer.ENTRY_SIZE / 4];
+		int e = 0;
+		for (Record record : sorted) {
+			int category = id(record.category, record.categoryDescription, categoryIds, categoryTable);
+			int topic = id(record.topic, record.topicDescription, topicIds, topicTable);
+
+			// Igual que DictionaryMatcher: la frase se reconoce en el texto si su forma canonica
+			// tiene una categoria que no es Other y tiene hasta MAX_TOKENS palabras
+			String canonical = (record.canonical != null) ? record.canonical : record.phrase;
+			Record target = records.get(canonical);
+			int matchCanonical = MappedGazetteer.NONE;
+			int matchCategory = MappedGazetteer.NONE;
+			if (target != null && target.category != null && !target.category.equals("Other")
+					&& record.phrase.split(" ", -1).length <= EntityDictionary.MAX_TOKENS) {
+				matchCanonical = pool.ref(canonical);
+				matchCategory = id(target.category, target.categoryDescription, categoryIds, categoryTable);
+			}
+
+			entries[e++] = pool.ref(record.phrase);
+			entries[e++] = pool.ref(record.canonical);
+			entries[e++] = category;
+			entries[e++] = topic;
+			entries[e++] = matchCanonical;
+			entries[e++] = matchCategory;
+		}
+		int[] categories = table(categoryTable, pool);
+		int[] topics = table(topicTable, pool);
+		int[] index = index(sorted, pool);
+
+		int entriesOffset = MappedGazetteer.HEADER_SIZE;
+		int categoriesOffset = entriesOffset + entries.length * 4;
+		int topicsOffset = categoriesOffset + categories.length * 4;
+		int indexOffset = topicsOffset + topics.length * 4;
+		int poolOffset = indexOffset + index.length * 4;
+
+		// Se escribe a un temporal y se reemplaza al final, para no dejar un archivo a medias
+		Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+		try (OutputStream stream = Files.newOutputStream(temp);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+			out.writeInt(MappedGazetteer.MAGIC);
+			out.writeInt(MappedGazetteer.VERSION);
+			out.writeInt(sorted.size());
+			out.writeInt(categoryTable.size());
+			out.writeInt(topicTable.size());
+			out.writeInt(index.length * 4 / MappedGazetteer.SLOT_SIZE);
+			out.writeInt(entriesOffset);
+			out.writeInt(categoriesOffset);
+			out.writeInt(topicsOffset);
+			out.writeInt(indexOffset);
+			out.writeInt(poolOffset);
+			out.writeInt(pool.size);
+			for (int[] section : new int[][] { entries, categories, topics, index }) {
+				for (int value : section) {
+					out.writeInt(value);
+				}
+			}
+			pool.writeTo(out);
+		}
+		Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static int id(String name, String description, Map<List<String>, Integer> ids, List<List<String>> table) {
+		if (name == null) {
+			return MappedGazetteer.NONE;
+		}
+		List<String> value = Arrays.asList(name, description);
+		Integer id = ids.get(value);
+		if (id == null) {
+			id = table.size();
+			ids.put(value, id);
+			table.add(value);
+		}
+		return id;
+	}
+
+	/**
+	 * Arma la tabla hash del indice con cada frase y sus prefijos de hasta MAX_TOKENS - 1
+	 * palabras (los que puede recorrer matchAt), al menos con la mitad de los slots libres.
+	 */
+	private static int[] index(List<Record> sorted, StringPool pool) {
+		Map<String, int[]> keys = new HashMap<>(); // clave -> { entrada, flags }
+		for (int i = 0; i < sorted.size(); i++) {
+			String phrase = sorted.get(i).phrase;
+			keys.computeIfAbsent(phrase, k -> new int[] { MappedGazetteer.NONE, 0 })[0] = i;
+			String[] words = phrase.split(" ", -1);
+			String prefix = words[0];
+			for (int w = 1; w < Math.min(words.length, EntityDictionary.MAX_TOKENS); w++) {
+				keys.computeIfAbsent(prefix, k -> new int[] { MappedGazetteer.NONE, 0 })[1] |= MappedGazetteer.HAS_LONGER;
+				prefix = prefix + " " + words[w];
+			}
+		}
+
+		int capacity = 2;
+		while (capacity < 2L * keys.size()) {
+			capacity *= 2;
+		}
+		int slotInts = MappedGazetteer.SLOT_SIZE / 4;
+		int[] table = new int[capacity * slotInts];
+		Arrays.fill(table, MappedGazetteer.NONE);
+		for (Map.Entry<String, int[]> key : keys.entrySet()) {
+			int hash = key.getKey().hashCode();
+			int slot = hash & (capacity - 1);
+			while (table[slot * slotInts + 1] != MappedGazetteer.NONE) {
+				slot = (slot + 1) & (capacity - 1);
+			}
+			table[slot * slotInts] = hash;
+			table[slot * slotInts + 1] = pool.ref(key.getKey());
+			table[slot * slotInts + 2] = key.getValue()[0];
+			table[slot * slotInts + 3] = key.getValue()[1];
+		}
+		return table;
+	}
+
+	private static int[] table(List<List<String>> rows, StringPool pool) {
+		int[] table = new int[rows.size() * 2];
+		for (int i = 0; i < rows.size(); i++) {
+			table[2 * i] = pool.ref(rows.get(i).get(0));
+			table[2 * i + 1] = pool.ref(rows.get(i).get(1));
+		}
+		return table;
+	}
+
+	/* Strings del archivo sin repetir: cada uno se guarda una vez y se referencia por su offset */
+	private static class StringPool {
+		final Map<String, Integer> refs = new HashMap<>();
+		final List<byte[]> strings = new ArrayList<>();
+		int size = 0;
+
+		int ref(String value) {
+			if (value == null) {
+				return MappedGazetteer.NONE;
+			}
+			Integer ref = refs.get(value);
+			if (ref == null) {
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				if ((long) size + 4 + bytes.length > Integer.MAX_VALUE) {
+					throw new IllegalArgumentException("Demasiado texto para un gazetteer (maximo 2 GB)");
+				}
+				ref = size;
+				refs.put(value, ref);
+				strings.add(bytes);
+				size += 4 + bytes.length;
+			}
+			return ref;
+		}
+
+		void writeTo(DataOutputStream out) throws IOException {
+			for (byte[] bytes : strings) {
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+		}
+	}
+
+	/* Escribe los mapas de BuiltinDictionary en el formato TSV de entrada */
+	public static void exportBuiltin(Path output) throws IOException {
+		Map<String, String> canonicalMap = BuiltinDictionary.canonicalMap();
+		Map<String, Category> categoryMap = BuiltinDictionary.categoryMap();
+		Map<String, Topic> topicMap = BuiltinDictionary.topicMap();
+		TreeSet<String> phrases = new TreeSet<>();
+		phrases.addAll(canonicalMap.keySet());
+		phrases.addAll(categoryMap.keySet());
+		phrases.addAll(topicMap.keySet());
+
+		try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+			writer.write("# " + String.join("\t", COLUMNS));
+			writer.newLine();
+			for (String phrase : phrases) {
+				Category category = categoryMap.get(phrase);
+				Topic topic = topicMap.get(phrase);
+				writer.write(String.join("\t", phrase,
+						valueOf(canonicalMap.get(phrase)),
+						(category != null) ? category.getCategoryName() : "",
+						(category != null) ? valueOf(category.getAtom()) : "",
+						(topic != null) ? topic.getTopicName() : "",
+						(topic != null) ? valueOf(topic.getDescription()) : ""));
+				writer.newLine();
+			}
+		}
+		System.out.println("Diccionario exportado con " + phrases.size() + " frases: " + output);
+	}
+
+	private static String valueOf(String value) {
+		return (value != null) ? value : "";
+	}
+}
@@ -0,0 +1,109 @@
+package namedEntity.heuristic;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/* Lo necesario para armar una heuristica en cualquier JVM: el tipo (-qh o -rh), la semilla de
+ * RandomHeuristic, el gazetteer (vacio para BuiltinDictionary) y el tamano del cache de
+ * CachingHeuristic (0 para no usarlo). Se lee una vez de las
+ * propiedades del driver y se manda a los executors de Spark como broadcast, en vez de mandar
+ * la heuristica con cada tarea: los mapas de BuiltinDictionary son estaticos y el gazetteer se
+ * mapea una sola vez por JVM, asi que en cada executor solo hace falta saber cual usar.
+ *
+ * Lo mismo vale para el cache: hay un CachingHeuristic por configuracion y por JVM, asi las
+ * tareas de un executor lo comparten en vez de arrancar cada una con un cache vacio.
+ * */
+public class HeuristicConfig implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final String type;
+	private final long seed;
+	private final String gazetteer;
+	private final int cacheSize;
+
+	// Un CachingHeuristic por configuracion y por JVM (como MappedGazetteer.open por archivo)
+	private static final Map<HeuristicConfig, CachingHeuristic> caches = new ConcurrentHashMap<>();
+
+	public HeuristicConfig(String type, long seed, String gazetteer, int cacheSize) {
+		this.type = type;
+		this.seed = seed;
+		this.gazetteer = (gazetteer != null) ? gazetteer.trim() : "";
+		this.cacheSize = cacheSize;
+	}
+
+	/* El tipo del argumento, con feedreader.randomSeed, feedreader.gazetteer y feedreader.heuristicCache */
+	public static HeuristicConfig fromSystemProperties(String type) {
+		return new HeuristicConfig(type, Long.getLong("feedreader.randomSeed", RandomHeuristic.DEFAULT_SEED),
+				System.getProperty("feedreader.gazetteer", ""), Integer.getInteger("feedreader.heuristicCache", 0));
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public String getGazetteer() {
+		return gazetteer;
+	}
+
+	public int getCacheSize() {
+		return cacheSize;
+	}
+
+	/* Diccionario de la configuracion (ver MappedGazetteer.open para el caso del archivo) */
+	public EntityDictionary dictionary() throws IOException {
+		if (gazetteer.isEmpty()) {
+			return BuiltinDictionary.INSTANCE;
+		}
+		return MappedGazetteer.open(Paths.get(gazetteer));
+	}
+
+	/* RandomHeuristic para -rh; QuickHeuristic para cualquier otro tipo. Con cacheSize > 0 va
+	 * envuelta en el CachingHeuristic de esta configuracion en la JVM, el mismo en cada llamada */
+	public Heuristic create() throws IOException {
+		if (cacheSize <= 0) {
+			return uncached();
+		}
+		CachingHeuristic heuristic = caches.get(this);
+		if (heuristic == null) {
+			CachingHeuristic created = new CachingHeuristic(uncached(), cacheSize);
+			heuristic = caches.putIfAbsent(this, created);
+			if (heuristic == null) {
+				heuristic = created;
+			}
+		}
+		return heuristic;
+	}
+
+	private Heuristic uncached() throws IOException {
+		if ("-rh".equals(type)) {
+			return new RandomHeuristic(seed, dictionary());
+		}
+		return new QuickHeuristic(dictionary());
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof HeuristicConfig)) {
+			return false;
+		}
+		HeuristicConfig other = (HeuristicConfig) o;
+		return Objects.equals(type, other.type) && seed == other.seed && gazetteer.equals(other.gazetteer)
+				&& cacheSize == other.cacheSize;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(type, seed, gazetteer, cacheSize);
+	}
+}
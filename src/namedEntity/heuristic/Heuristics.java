@@ -0,0 +1,21 @@
+package namedEntity.heuristic;
+
+import java.io.IOException;
+
+/* Arma la heuristica que piden los argumentos de linea de comandos (-qh o -rh), con el
+ * diccionario que indica la propiedad feedreader.gazetteer. Lo usan FeedReaderMain y
+ * SparkFeedFetcher, asi las dos versiones eligen la heuristica de la misma forma.
+ * */
+public final class Heuristics {
+
+	private Heuristics() {
+	}
+
+	/**
+	 * La heuristica del tipo dado con el diccionario de la propiedad feedreader.gazetteer: un
+	 * archivo generado con GazetteerBuilder (ver MappedGazetteer), o BuiltinDictionary si no esta.
+	 */
+	public static Heuristic fromSystemProperties(String flag) throws IOException {
+		return HeuristicConfig.fromSystemProperties(flag).create();
+	}
+}
@@ -0,0 +1,421 @@
+package namedEntity.heuristic;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import namedEntity.Tokenizer;
+import namedEntity.categories.Category;
+import namedEntity.categories.DateEntity;
+import namedEntity.categories.Event;
+import namedEntity.categories.Organization;
+import namedEntity.categories.Other;
+import namedEntity.categories.Product;
+import namedEntity.categories.Person.Person;
+import namedEntity.categories.Place.OtherPlace;
+import namedEntity.categories.Place.Place;
+import namedEntity.topics.Culture;
+import namedEntity.topics.OtherTopic;
+import namedEntity.topics.Politics;
+import namedEntity.topics.Sports;
+import namedEntity.topics.Topic;
+
+/* Diccionario de entidades leido de un archivo binario generado con GazetteerBuilder. El
+ * archivo se mapea en memoria y se consulta ahi mismo: abrirlo no carga las entradas al heap,
+ * asi que puede tener millones de frases sin demorar el arranque ni ocupar memoria de la JVM
+ * (el sistema operativo trae las paginas a medida que se usan y las comparte entre procesos).
+ *
+ * Formato (enteros de 4 bytes big-endian):
+ *   cabecera   MAGIC, VERSION, cantidades y el offset de cada seccion
+ *   entradas   una por frase, ordenadas por los bytes UTF-8 de la frase:
+ *              frase, canonica, categoria, topico, canonica y categoria para matchAt
+ *   categorias tipo (getCategoryName) y atom de cada categoria distinta
+ *   topicos    nombre y descripcion de cada topico distinto
+ *   indice     tabla hash abierta con cada frase y cada prefijo de palabras de una frase:
+ *              String.hashCode, la frase, su entrada (-1 si es solo un prefijo) y HAS_LONGER
+ *              si hay frases mas largas que empiezan con ella
+ *   strings    cada uno como largo + bytes UTF-8; las demas secciones guardan su offset aca
+ * Las categorias y los topicos se referencian por id (su posicion en la tabla), -1 si no hay.
+ *
+ * El indice funciona como el trie de DictionaryMatcher: matchAt agrega una palabra por vez,
+ * calcula el hash de la frase de forma incremental y deja de buscar cuando el prefijo no tiene
+ * frases mas largas. Las frases se comparan contra los bytes del archivo, sin armar Strings.
+ * Las categorias y los topicos se crean la primera vez que se piden (como instancias
+ * canonicas, ver Category.intern) y despues se reutilizan.
+ * */
+public final class MappedGazetteer implements EntityDictionary {
+	private static final long serialVersionUID = 1L;
+
+	static final int MAGIC = 0x475A5431; // "GZT1"
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 48;
+	static final int ENTRY_SIZE = 24;
+	static final int CATEGORY_SIZE = 8;
+	static final int TOPIC_SIZE = 8;
+	static final int SLOT_SIZE = 16;
+	static final int HAS_LONGER = 1;
+	static final int NONE = -1;
+
+	// Un gazetteer abierto por archivo y por JVM (tambien al deserializarlo en un executor)
+	private static final Map<Path, MappedGazetteer> opened = new ConcurrentHashMap<>();
+
+	// Buffer reutilizable para armar las frases de varias palabras en matchAt
+	private static final ThreadLocal<PhraseBuffer> phrases = ThreadLocal.withInitial(PhraseBuffer::new);
+
+	// Como String porque Path no es serializable
+	private final String file;
+	private transient MappedByteBuffer buffer;
+	private transient int entryCount;
+	private transient int entriesOffset;
+	private transient int categoriesOffset;
+	private transient int topicsOffset;
+	private transient int indexOffset;
+	private transient int indexMask;
+	private transient int poolOffset;
+	private transient Map<Integer, Category> categories;
+	private transient Map<Integer, Topic> topics;
+	private transient Map<Integer, Entry> matches;
+
+	private MappedGazetteer(Path file) throws IOException {
+		this.file = file.toString();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Gazetteer demasiado grande (maximo 2 GB): " + file);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException("No es un archivo de gazetteer: " + file);
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException("Version de gazetteer no soportada (" + buffer.getInt(4) + "): " + file);
+		}
+		entryCount = buffer.getInt(8);
+		int slotCount = buffer.getInt(20);
+		entriesOffset = buffer.getInt(24);
+		categoriesOffset = buffer.getInt(28);
+		topicsOffset = buffer.getInt(32);
+		indexOffset = buffer.getInt(36);
+		poolOffset = buffer.getInt(40);
+		// Un archivo truncado o roto tiene que fallar aca y no en medio de computeNamedEntities.
+		// slot() necesita una cantidad de slots potencia de dos y al menos uno libre para terminar
+		if (entryCount < 0 || Integer.bitCount(slotCount) != 1 || slotCount <= entryCount) {
+			throw new IOException("Cabecera de gazetteer invalida (" + entryCount + " frases, "
+					+ slotCount + " slots): " + file);
+		}
+		checkSection("entradas", entriesOffset, (long) entryCount * ENTRY_SIZE);
+		checkSection("categorias", categoriesOffset, (long) buffer.getInt(12) * CATEGORY_SIZE);
+		checkSection("topicos", topicsOffset, (long) buffer.getInt(16) * TOPIC_SIZE);
+		checkSection("indice", indexOffset, (long) slotCount * SLOT_SIZE);
+		checkSection("strings", poolOffset, buffer.getInt(44));
+		indexMask = slotCount - 1;
+		categories = new ConcurrentHashMap<>();
+		topics = new ConcurrentHashMap<>();
+		matches = new ConcurrentHashMap<>();
+	}
+
+	private void checkSection(String name, int offset, long length) throws IOException {
+		if (offset < HEADER_SIZE || length < 0 || offset + length > buffer.capacity()) {
+			throw new IOException("Seccion de " + name + " fuera del archivo (offset " + offset
+					+ ", " + length + " bytes de " + buffer.capacity() + "): " + file);
+		}
+	}
+
+	/**
+	 * Abre (o devuelve, si ya estaba abierto en esta JVM) el gazetteer del archivo.
+	 * @throws IOException si no se puede leer o no tiene el formato de GazetteerBuilder
+	 */
+	public static MappedGazetteer open(Path file) throws IOException {
+		Path key = file.toAbsolutePath().normalize();
+		MappedGazetteer gazetteer = opened.get(key);
+		if (gazetteer == null) {
+			MappedGazetteer created = new MappedGazetteer(key);
+			gazetteer = opened.putIfAbsent(key, created);
+			if (gazetteer == null) {
+				gazetteer = created;
+			}
+		}
+		return gazetteer;
+	}
+
+	public Path getFile() {
+		return Paths.get(file);
+	}
+
+	/* Cantidad de frases del archivo */
+	public int size() {
+		return entryCount;
+	}
+
+	@Override
+	public String getCanonical(String phrase) {
+		int index = find(phrase);
+		return (index >= 0) ? string(field(index, 4)) : null;
+	}
+
+	@Override
+	public Category getCategory(String entity) {
+		int index = find(entity);
+		return (index >= 0) ? category(field(index, 8)) : null;
+	}
+
+	@Override
+	public Topic getTopic(String entity) {
+		int index = find(entity);
+		return (index >= 0) ? topic(field(index, 12)) : null;
+	}
+
+	/* Recorre el indice como un trie: una palabra mas por vez, mientras haya frases mas largas */
+	@Override
+	public int matchAt(Tokenizer tokens, int start, Entry[] found) {
+		int longest = 0;
+		char[] text = tokens.text();
+		int limit = Math.min(MAX_TOKENS, tokens.size() - start);
+		PhraseBuffer phrase = phrases.get();
+		phrase.clear();
+		int hash = 0;
+		for (int k = 0; k < limit; k++) {
+			if (k > 0) {
+				phrase.append(' ');
+				hash = 31 * hash + ' ';
+			}
+			for (int i = tokens.start(start + k); i < tokens.end(start + k); i++) {
+				hash = 31 * hash + text[i];
+			}
+			phrase.append(text, tokens.start(start + k), tokens.end(start + k));
+
+			int slot = slot(hash, phrase);
+			if (slot == NONE) {
+				found[k] = null;
+				break;
+			}
+			int index = buffer.getInt(slot + 8);
+			found[k] = (index != NONE) ? match(index) : null;
+			if (found[k] != null) {
+				longest = k + 1;
+			}
+			if ((buffer.getInt(slot + 12) & HAS_LONGER) == 0) {
+				break;
+			}
+		}
+		return longest;
+	}
+
+	private Entry match(int index) {
+		Entry entry = matches.get(index);
+		if (entry == null) {
+			int canonical = field(index, 16);
+			if (canonical == NONE) {
+				return null;
+			}
+			entry = new Entry(string(field(index, 0)), string(canonical), category(field(index, 20)));
+			matches.putIfAbsent(index, entry);
+		}
+		return entry;
+	}
+
+	private int field(int index, int offset) {
+		return buffer.getInt(entriesOffset + index * ENTRY_SIZE + offset);
+	}
+
+	/* Entrada de la frase, o -1 si no esta en el archivo */
+	private int find(String phrase) {
+		int slot = slot(phrase.hashCode(), phrase);
+		return (slot != NONE) ? buffer.getInt(slot + 8) : NONE;
+	}
+
+	/* Posicion en el archivo del slot del indice con la frase (o el prefijo), o -1 si no esta */
+	private int slot(int hash, CharSequence phrase) {
+		for (int i = hash & indexMask;; i = (i + 1) & indexMask) {
+			int slot = indexOffset + i * SLOT_SIZE;
+			int ref = buffer.getInt(slot + 4);
+			if (ref == NONE) {
+				return NONE;
+			}
+			if (buffer.getInt(slot) == hash && sameString(ref, phrase)) {
+				return slot;
+			}
+		}
+	}
+
+	/* true si el string guardado en ref tiene los mismos code points que key */
+	private boolean sameString(int ref, CharSequence key) {
+		int pos = poolOffset + ref;
+		int end = pos + 4 + buffer.getInt(pos);
+		pos += 4;
+		int i = 0;
+		while (pos < end && i < key.length()) {
+			int stored;
+			int b = buffer.get(pos) & 0xFF;
+			if (b < 0x80) {
+				stored = b;
+				pos += 1;
+			} else if (b < 0xE0) {
+				stored = ((b & 0x1F) << 6) | (buffer.get(pos + 1) & 0x3F);
+				pos += 2;
+			} else if (b < 0xF0) {
+				stored = ((b & 0x0F) << 12) | ((buffer.get(pos + 1) & 0x3F) << 6) | (buffer.get(pos + 2) & 0x3F);
+				pos += 3;
+			} else {
+				stored = ((b & 0x07) << 18) | ((buffer.get(pos + 1) & 0x3F) << 12)
+						| ((buffer.get(pos + 2) & 0x3F) << 6) | (buffer.get(pos + 3) & 0x3F);
+				pos += 4;
+			}
+			int wanted = key.charAt(i++);
+			if (Character.isHighSurrogate((char) wanted) && i < key.length()
+					&& Character.isLowSurrogate(key.charAt(i))) {
+				wanted = Character.toCodePoint((char) wanted, key.charAt(i++));
+			}
+			if (stored != wanted) {
+				return false;
+			}
+		}
+		return pos == end && i == key.length();
+	}
+
+	private String string(int ref) {
+		if (ref == NONE) {
+			return null;
+		}
+		int pos = poolOffset + ref;
+		byte[] bytes = new byte[buffer.getInt(pos)];
+		buffer.get(pos + 4, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private Category category(int id) {
+		if (id == NONE) {
+			return null;
+		}
+		Category category = categories.get(id);
+		if (category == null) {
+			int pos = categoriesOffset + id * CATEGORY_SIZE;
+			category = Category.intern(newCategory(string(buffer.getInt(pos)), string(buffer.getInt(pos + 4))));
+			categories.putIfAbsent(id, category);
+		}
+		return category;
+	}
+
+	private Topic topic(int id) {
+		if (id == NONE) {
+			return null;
+		}
+		Topic topic = topics.get(id);
+		if (topic == null) {
+			int pos = topicsOffset + id * TOPIC_SIZE;
+			topic = Topic.intern(newTopic(string(buffer.getInt(pos)), string(buffer.getInt(pos + 4))));
+			topics.putIfAbsent(id, topic);
+		}
+		return topic;
+	}
+
+	/**
+	 * Crea la categoria de un tipo (el valor de getCategoryName) con su atom. Las personas y los
+	 * lugares del archivo no tienen nombre, apellido, titulo ni direccion: solo el tipo.
+	 * @throws IllegalArgumentException si el tipo no existe
+	 */
+	static Category newCategory(String kind, String atom) {
+		switch (kind) {
+			case "Person":
+				return new Person(null, null, null);
+			case "Place":
+				return new Place(atom, null, null, null);
+			case "OtherPlace":
+				return new OtherPlace(atom);
+			case "Organization":
+				return new Organization(atom);
+			case "Product":
+				return new Product(atom);
+			case "Event":
+				return new Event(atom);
+			case "Date":
+				return new DateEntity(atom, atom);
+			case "Other":
+				return new Other(atom);
+			default:
+				throw new IllegalArgumentException("Categoria desconocida: " + kind);
+		}
+	}
+
+	/* Crea el topico con su nombre (getTopicName) y descripcion (getDescription) */
+	static Topic newTopic(String name, String description) {
+		switch (name) {
+			case "Politics":
+				return new Politics(description);
+			case "Culture":
+				return new Culture(description);
+			case "Sports":
+				return new Sports(description);
+			case "OtherTopic":
+				return new OtherTopic(description);
+			default:
+				return new Topic(name, description);
+		}
+	}
+
+	// Al deserializar (por ejemplo, en un executor de Spark) se vuelve a mapear el mismo archivo
+	private Object readResolve() throws ObjectStreamException {
+		try {
+			return open(Paths.get(file));
+		} catch (IOException e) {
+			InvalidObjectException invalid = new InvalidObjectException(
+					"No se pudo abrir el gazetteer " + file + ": " + e.getMessage());
+			invalid.initCause(e);
+			throw invalid;
+		}
+	}
+
+	/* Frase de varias palabras armada sobre un arreglo reutilizable */
+	private static final class PhraseBuffer implements CharSequence {
+		char[] chars = new char[64];
+		int length = 0;
+
+		void clear() {
+			length = 0;
+		}
+
+		void append(char c) {
+			if (length == chars.length) {
+				chars = Arrays.copyOf(chars, length * 2);
+			}
+			chars[length++] = c;
+		}
+
+		void append(char[] text, int start, int end) {
+			if (length + end - start > chars.length) {
+				chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + end - start));
+			}
+			System.arraycopy(text, start, chars, length, end - start);
+			length += end - start;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return chars[index];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new String(chars, start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			return new String(chars, 0, length);
+		}
+	}
+}
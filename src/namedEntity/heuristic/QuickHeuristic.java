@@ -160,14 +160,148 @@ public class QuickHeuristic extends Heuristic {
 		"hello"
 	);
 
+	// Las stop words en una tabla hash abierta, para buscarlas sin distinguir mayúsculas y sin
+	// pasar la palabra a minúsculas. Se arma una sola vez a partir de keyWords
+	private static final StopWordSet stopWords = new StopWordSet(keyWords);
+
+	public QuickHeuristic() {
+	}
+
+	public QuickHeuristic(EntityDictionary dictionary) {
+		super(dictionary);
+	}
+
 	public boolean isEntity(String word) {
 		return (
 			word.length() > 1 &&
-			word.substring(0, 1).compareTo(word.substring(0, 1).toUpperCase()) == 0 &&
-			!keyWords.contains(word.toLowerCase())
+			startsUpperCase(word.charAt(0)) &&
+			!stopWords.contains(word)
 		);
 	}
 
+	@Override
+	public boolean isEntity(char[] text, int start, int end) {
+		return (
+			end - start > 1 &&
+			startsUpperCase(text[start]) &&
+			!stopWords.contains(text, start, end)
+		);
+	}
+
+	/**
+	 * La primera letra queda igual al pasarla a mayúsculas (también vale para dígitos y signos).
+	 * Fuera de ASCII se usa la misma regla que String.toUpperCase (por ejemplo 'ß' pasa a "SS").
+	 */
+	private static boolean startsUpperCase(char first) {
+		if (first < 128) {
+			return first < 'a' || first > 'z';
+		}
+		String letter = String.valueOf(first);
+		return letter.equals(letter.toUpperCase());
+	}
+
+	/* Conjunto de palabras en minúscula que se consulta sin distinguir mayúsculas */
+	private static final class StopWordSet {
+		private final String[] table;
+		private final int mask;
+		private final int maxLength;
+
+		StopWordSet(List<String> words) {
+			int capacity = Integer.highestOneBit(Math.max(words.size(), 1) * 4);
+			this.table = new String[capacity];
+			this.mask = capacity - 1;
+			int longest = 0;
+			for (String word : words) {
+				// Una entrada con mayúsculas nunca coincidía con word.toLowerCase(): se ignora
+				if (word.equals(word.toLowerCase()) && !containsLowerCase(word)) {
+					int slot = word.hashCode() & mask;
+					while (table[slot] != null) {
+						slot = (slot + 1) & mask;
+					}
+					table[slot] = word;
+					longest = Math.max(longest, word.length());
+				}
+			}
+			this.maxLength = longest;
+		}
+
+		boolean contains(String word) {
+			int length = word.length();
+			int hash = 0;
+			for (int i = 0; i < length; i++) {
+				char c = word.charAt(i);
+				if (c >= 128) {
+					return containsLowerCase(word.toLowerCase());
+				}
+				hash = 31 * hash + toLowerAscii(c);
+			}
+			if (length > maxLength) {
+				return false;
+			}
+			for (int slot = hash & mask; table[slot] != null; slot = (slot + 1) & mask) {
+				String candidate = table[slot];
+				if (candidate.length() == length && sameIgnoringCase(candidate, word)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		boolean contains(char[] text, int start, int end) {
+			int length = end - start;
+			int hash = 0;
+			for (int i = start; i < end; i++) {
+				char c = text[i];
+				if (c >= 128) {
+					return containsLowerCase(new String(text, start, length).toLowerCase());
+				}
+				hash = 31 * hash + toLowerAscii(c);
+			}
+			if (length > maxLength) {
+				return false;
+			}
+			for (int slot = hash & mask; table[slot] != null; slot = (slot + 1) & mask) {
+				String candidate = table[slot];
+				if (candidate.length() == length && sameIgnoringCase(candidate, text, start)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/* Búsqueda exacta de una palabra que ya está en minúsculas (camino para texto no ASCII) */
+		private boolean containsLowerCase(String lower) {
+			for (int slot = lower.hashCode() & mask; table[slot] != null; slot = (slot + 1) & mask) {
+				if (table[slot].equals(lower)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private static boolean sameIgnoringCase(String lower, String word) {
+			for (int i = 0; i < lower.length(); i++) {
+				if (lower.charAt(i) != toLowerAscii(word.charAt(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static boolean sameIgnoringCase(String lower, char[] text, int start) {
+			for (int i = 0; i < lower.length(); i++) {
+				if (lower.charAt(i) != toLowerAscii(text[start + i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static char toLowerAscii(char c) {
+			return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+		}
+	}
+
 	public static void main(String[] args) {
 		//		QuickHeuristic qh = new QuickHeuristic();
 	}
@@ -1,35 +1,58 @@
 package namedEntity.heuristic;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
-
+/* Heuristica que decide al azar si una palabra es entidad, pero siempre igual para la misma
+ * palabra: la decision es un hash de (semilla, palabra). No guarda estado, asi que no crece con
+ * el texto, es thread-safe y da la misma respuesta en cualquier hilo, tarea o executor de Spark
+ * que use la misma semilla.
+ * */
 public class RandomHeuristic extends Heuristic {
+	private static final long serialVersionUID = 1L;
+
+	public static final long DEFAULT_SEED = 0x5DEECE66DL;
 
-	private Random rnd = new Random();
+	private final long seed;
 
-	//usefull for random heuritic's consistency
-	private List<String> positiveCases = new ArrayList<String>();
-	private List<String> negativeCases = new ArrayList<String>();
+	/* Usa la semilla de la propiedad feedreader.randomSeed, o DEFAULT_SEED */
+	public RandomHeuristic() {
+		this(Long.getLong("feedreader.randomSeed", DEFAULT_SEED));
+	}
+
+	public RandomHeuristic(long seed) {
+		this.seed = seed;
+	}
 
-	private boolean isPositiveCase(String entity) {
-		return this.positiveCases.contains(entity);
+	public RandomHeuristic(long seed, EntityDictionary dictionary) {
+		super(dictionary);
+		this.seed = seed;
 	}
 
-	private boolean isNegativeCase(String entity) {
-		return this.negativeCases.contains(entity);
+	public long getSeed() {
+		return seed;
 	}
 
 	public boolean isEntity(String word) {
-		//already it was classified
-		if (this.isPositiveCase(word)) return true;
-		if (this.isNegativeCase(word)) return false;
-
-		//if it was not classified yet, then lottery
-		boolean b = ((int) (rnd.nextDouble() * 100)) % 2 == 0;
-		if (b) this.positiveCases.add(word);
-		else this.negativeCases.add(word);
-		return b;
+		long h = seed;
+		for (int i = 0; i < word.length(); i++) {
+			h = (h ^ word.charAt(i)) * 0x100000001B3L;
+		}
+		return decide(h);
+	}
+
+	@Override
+	public boolean isEntity(char[] text, int start, int end) {
+		long h = seed;
+		for (int i = start; i < end; i++) {
+			h = (h ^ text[i]) * 0x100000001B3L;
+		}
+		return decide(h);
+	}
+
+	// Mezcla final de SplitMix64: cada bit del resultado depende de toda la palabra
+	private static boolean decide(long h) {
+		h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+		h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+		h = h ^ (h >>> 31);
+		return (h & 1) == 0;
 	}
 
 	public static void main(String[] args) {
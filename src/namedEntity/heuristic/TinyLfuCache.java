@@ -0,0 +1,332 @@
+package namedEntity.heuristic;
+
+/* Cache acotado de valores por String con admision W-TinyLFU:
+ *   - una ventana LRU chica (1% de la capacidad) donde entra todo lo nuevo;
+ *   - un area principal SLRU (probation + protected) para lo que se usa seguido;
+ *   - un sketch count-min con la frecuencia aproximada de cada clave, que decide si lo que sale
+ *     de la ventana le gana el lugar a la victima de probation.
+ * Asi una rafaga de claves que aparecen una sola vez no desplaza a las que se repiten en
+ * muchos articulos ("Trump", "New York", ...).
+ *
+ * Para usarlo desde varios hilos las claves se reparten en segmentos, cada uno con su lock,
+ * sus listas y su sketch. Las claves se pueden buscar como rango de un char[] (por ejemplo, una
+ * palabra del Tokenizer) sin crear el String.
+ * */
+class TinyLfuCache<V> {
+
+	private final Segment<V>[] segments;
+	private final int segmentShift;
+
+	@SuppressWarnings("unchecked")
+	TinyLfuCache(int maximumSize) {
+		int count = 1;
+		int target = Math.min(Runtime.getRuntime().availableProcessors() * 4, Math.max(1, maximumSize / 64));
+		while (count < target) {
+			count *= 2;
+		}
+		segments = (Segment<V>[]) new Segment<?>[count];
+		for (int i = 0; i < count; i++) {
+			segments[i] = new Segment<>(Math.max(2, (maximumSize + count - 1) / count));
+		}
+		segmentShift = 32 - Integer.numberOfTrailingZeros(count);
+	}
+
+	/* El valor de la clave, o null si no esta; registra el acceso */
+	V get(String key) {
+		int hash = key.hashCode();
+		return segmentFor(hash).get(hash, key, null, 0, 0);
+	}
+
+	/* Igual que get(String) para la clave text[start, end) */
+	V get(char[] text, int start, int end) {
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + text[i];
+		}
+		return segmentFor(hash).get(hash, null, text, start, end);
+	}
+
+	/**
+	 * Agrega el valor si la clave no esta. La admision puede descartarlo enseguida si la clave
+	 * es menos frecuente que la que tendria que desplazar.
+	 * @return el valor que ya estaba, o value
+	 */
+	V putIfAbsent(String key, V value) {
+		int hash = key.hashCode();
+		return segmentFor(hash).putIfAbsent(hash, key, value);
+	}
+
+	long evictionCount() {
+		long evictions = 0;
+		for (Segment<V> segment : segments) {
+			synchronized (segment) {
+				evictions += segment.evictions;
+			}
+		}
+		return evictions;
+	}
+
+	int size() {
+		int size = 0;
+		for (Segment<V> segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	private Segment<V> segmentFor(int hash) {
+		return (segmentShift == 32) ? segments[0] : segments[(hash * 0x9E3779B9) >>> segmentShift];
+	}
+
+	private static final int WINDOW = 0;
+	private static final int PROBATION = 1;
+	private static final int PROTECTED = 2;
+
+	private static final class Node<V> {
+		final String key;
+		final int hash;
+		final V value;
+		Node<V> nextInBucket;
+		Node<V> prev;
+		Node<V> next;
+		int queue;
+
+		Node(String key, int hash, V value) {
+			this.key = key;
+			this.hash = hash;
+			this.value = value;
+		}
+
+		boolean sameKey(int hash, String key, char[] text, int start, int end) {
+			if (this.hash != hash) {
+				return false;
+			}
+			if (key != null) {
+				return this.key.equals(key);
+			}
+			if (this.key.length() != end - start) {
+				return false;
+			}
+			for (int i = 0; i < this.key.length(); i++) {
+				if (this.key.charAt(i) != text[start + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/* Lista doblemente enlazada con centinela: la cabeza es lo mas reciente */
+	private static final class Queue<V> {
+		final Node<V> sentinel = new Node<>(null, 0, null);
+		int size = 0;
+
+		Queue() {
+			sentinel.prev = sentinel;
+			sentinel.next = sentinel;
+		}
+
+		void addFirst(Node<V> node) {
+			node.next = sentinel.next;
+			node.prev = sentinel;
+			sentinel.next.prev = node;
+			sentinel.next = node;
+			size++;
+		}
+
+		void remove(Node<V> node) {
+			node.prev.next = node.next;
+			node.next.prev = node.prev;
+			size--;
+		}
+
+		Node<V> last() {
+			return (size > 0) ? sentinel.prev : null;
+		}
+	}
+
+	private static final class Segment<V> {
+		final Node<V>[] buckets;
+		final Queue<V> window = new Queue<>();
+		final Queue<V> probation = new Queue<>();
+		final Queue<V> protectedQueue = new Queue<>();
+		final FrequencySketch sketch;
+		final int windowMax;
+		final int mainMax;
+		final int protectedMax;
+		long evictions = 0;
+
+		@SuppressWarnings("unchecked")
+		Segment(int capacity) {
+			int length = 1;
+			while (length < capacity * 4 / 3 + 1) {
+				length *= 2;
+			}
+			buckets = (Node<V>[]) new Node<?>[length];
+			windowMax = Math.max(1, capacity / 100);
+			mainMax = Math.max(1, capacity - windowMax);
+			protectedMax = mainMax * 8 / 10;
+			sketch = new FrequencySketch(capacity);
+		}
+
+		int size() {
+			return window.size + probation.size + protectedQueue.size;
+		}
+
+		synchronized V get(int hash, String key, char[] text, int start, int end) {
+			sketch.increment(hash);
+			Node<V> node = find(hash, key, text, start, end);
+			if (node == null) {
+				return null;
+			}
+			touch(node);
+			return node.value;
+		}
+
+		synchronized V putIfAbsent(int hash, String key, V value) {
+			Node<V> node = find(hash, key, null, 0, 0);
+			if (node != null) {
+				return node.value;
+			}
+			node = new Node<>(key, hash, value);
+			int bucket = hash & (buckets.length - 1);
+			node.nextInBucket = buckets[bucket];
+			buckets[bucket] = node;
+			node.queue = WINDOW;
+			window.addFirst(node);
+			if (window.size > windowMax) {
+				admit(window.last());
+			}
+			return value;
+		}
+
+		private Node<V> find(int hash, String key, char[] text, int start, int end) {
+			for (Node<V> node = buckets[hash & (buckets.length - 1)]; node != null; node = node.nextInBucket) {
+				if (node.sameKey(hash, key, text, start, end)) {
+					return node;
+				}
+			}
+			return null;
+		}
+
+		// Acceso a una clave que esta: la ventana y protected son LRU, probation sube a protected
+		private void touch(Node<V> node) {
+			if (node.queue == WINDOW) {
+				window.remove(node);
+				window.addFirst(node);
+			} else if (node.queue == PROTECTED) {
+				protectedQueue.remove(node);
+				protectedQueue.addFirst(node);
+			} else {
+				probation.remove(node);
+				node.queue = PROTECTED;
+				protectedQueue.addFirst(node);
+				if (protectedQueue.size > protectedMax) {
+					Node<V> demoted = protectedQueue.last();
+					protectedQueue.remove(demoted);
+					demoted.queue = PROBATION;
+					probation.addFirst(demoted);
+				}
+			}
+		}
+
+		// El candidato que sale de la ventana pasa a probation si el area principal tiene lugar o
+		// si es mas frecuente que la victima (la menos reciente de probation)
+		private void admit(Node<V> candidate) {
+			window.remove(candidate);
+			candidate.queue = PROBATION;
+			probation.addFirst(candidate);
+			if (probation.size + protectedQueue.size <= mainMax) {
+				return;
+			}
+			Node<V> victim = probation.last();
+			if (victim == candidate) {
+				// probation solo tiene al candidato: compite con el menos reciente de protected
+				victim = protectedQueue.last();
+			}
+			if (victim == null || sketch.frequency(candidate.hash) <= sketch.frequency(victim.hash)) {
+				evict(candidate);
+			} else {
+				evict(victim);
+			}
+		}
+
+		private void evict(Node<V> node) {
+			if (node.queue == PROTECTED) {
+				protectedQueue.remove(node);
+			} else if (node.queue == PROBATION) {
+				probation.remove(node);
+			} else {
+				window.remove(node);
+			}
+			int bucket = node.hash & (buckets.length - 1);
+			if (buckets[bucket] == node) {
+				buckets[bucket] = node.nextInBucket;
+			} else {
+				Node<V> previous = buckets[bucket];
+				while (previous.nextInBucket != node) {
+					previous = previous.nextInBucket;
+				}
+				previous.nextInBucket = node.nextInBucket;
+			}
+			evictions++;
+		}
+	}
+
+	/* Sketch count-min de 4 filas con contadores de hasta 15. Cada 10 x capacidad accesos los
+	 * contadores se dividen por 2, asi las frecuencias viejas pierden peso. */
+	private static final class FrequencySketch {
+		private static final int[] SEEDS = { 0x97CB3127, 0xB1A83A6D, 0x8F4B6C35, 0xC2B2AE3D };
+		private static final int MAX_COUNT = 15;
+
+		final byte[][] rows = new byte[SEEDS.length][];
+		final int mask;
+		final int sampleSize;
+		int additions = 0;
+
+		FrequencySketch(int capacity) {
+			int width = 16;
+			while (width < capacity) {
+				width *= 2;
+			}
+			for (int i = 0; i < rows.length; i++) {
+				rows[i] = new byte[width];
+			}
+			mask = width - 1;
+			sampleSize = 10 * Math.max(capacity, 16);
+		}
+
+		int frequency(int hash) {
+			int frequency = MAX_COUNT;
+			for (int i = 0; i < rows.length; i++) {
+				frequency = Math.min(frequency, rows[i][index(hash, i)]);
+			}
+			return frequency;
+		}
+
+		void increment(int hash) {
+			for (int i = 0; i < rows.length; i++) {
+				int index = index(hash, i);
+				if (rows[i][index] < MAX_COUNT) {
+					rows[i][index]++;
+				}
+			}
+			if (++additions >= sampleSize) {
+				for (byte[] row : rows) {
+					for (int i = 0; i < row.length; i++) {
+						row[i] >>= 1;
+					}
+				}
+				additions /= 2;
+			}
+		}
+
+		private int index(int hash, int row) {
+			int h = hash * SEEDS[row];
+			h ^= h >>> 16;
+			return h & mask;
+		}
+	}
+}
@@ -1,7 +1,7 @@
 package namedEntity.topics;
 
 public class Culture extends Topic{
-    String description;
+    final String description;
     public static String name = "Culture";
 
     public Culture(String description){
@@ -1,7 +1,10 @@
 package namedEntity.topics;
 
 public class OtherTopic extends Topic{
-    String description;
+    // Topico de las palabras que no estan en el diccionario
+    public static final OtherTopic NO_TOPIC = Topic.intern(new OtherTopic("No topic found"));
+
+    final String description;
     
     public OtherTopic(String description){
         super("OtherTopic","OtherTopic" + description);
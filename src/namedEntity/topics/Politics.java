@@ -1,7 +1,7 @@
 package namedEntity.topics;
 
 public class Politics extends Topic {
-    String description;
+    final String description;
 
     public Politics(String description) {
         super("Politics","Politics: " +description);
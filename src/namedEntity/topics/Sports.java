@@ -1,7 +1,7 @@
 package namedEntity.topics;
 
 public class Sports extends Topic{
-    String description;
+    final String description;
     
     public Sports(String description){
         super("Sports","Sports: "+description);
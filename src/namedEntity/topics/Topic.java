@@ -1,12 +1,25 @@
 package namedEntity.topics;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
+/* Los topicos son valores inmutables, igual que las categorias: se comparte una instancia
+ * canonica por valor (ver intern), tambien despues de deserializarlos.
+ * */
 public class Topic implements Serializable {
     private static final long serialVersionUID = 1L;
-    
-    private String topic;
-    private String description;
+
+    // Instancia canonica de cada valor
+    private static final Map<Topic, Topic> pool = new ConcurrentHashMap<Topic, Topic>();
+
+    private final String topic;
+    private final String description;
+    private transient int hash;
 
     public Topic(String topic, String description) {
         this.topic = topic;
@@ -16,14 +29,55 @@ public class Topic implements Serializable {
     public String getTopicName(){
         return this.topic;
     }
-    public void setTopic(String topic) {
-        this.topic = topic;
-    }
-
 
     public String getDescription() {
         return this.description;
     }
+
+    /**
+     * Devuelve la instancia canonica con el mismo valor que el dado (el primero que se interno).
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Topic> T intern(T topic) {
+        Topic canonical = pool.putIfAbsent(topic, topic);
+        return (canonical != null) ? (T) canonical : topic;
+    }
+
+    /**
+     * Copia inmutable del mapa con todos sus topicos reemplazados por los canonicos.
+     */
+    public static <K> Map<K, Topic> internValues(Map<K, ? extends Topic> map) {
+        Map<K, Topic> interned = new HashMap<K, Topic>();
+        for (Map.Entry<K, ? extends Topic> entry : map.entrySet()) {
+            interned.put(entry.getKey(), intern(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(interned);
+    }
+
+    /* Al deserializar (por ejemplo, en el shuffle de Spark) se vuelve a la instancia canonica */
+    protected Object readResolve() throws ObjectStreamException {
+        return intern(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || o.getClass() != this.getClass()) {
+            return false;
+        }
+        Topic other = (Topic) o;
+        return Objects.equals(this.topic, other.topic) && Objects.equals(this.description, other.description);
+    }
+
+    @Override
+    public int hashCode() {
+        if (hash == 0) {
+            hash = Objects.hash(getClass().getName(), topic, description);
+        }
+        return hash;
+    }
     // public Topic(Sports t) {
     //     topic = t;
     // } ....
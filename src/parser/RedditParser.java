@@ -5,6 +5,9 @@ import feed.Feed;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -17,6 +20,7 @@ import org.json.JSONTokener;
 public class RedditParser extends GeneralParser {
 
 	private InputStream stream;
+	private Charset charset = StandardCharsets.UTF_8;
 	private String sitename;
 
 	/**
@@ -41,6 +45,18 @@ public class RedditParser extends GeneralParser {
 		sitename = _sitename;
 	}
 
+	/**
+	 * Constructor de la clase RedditParser que recibe un InputStream, su charset y el nombre del sitio.
+	 * @param _stream el InputStream
+	 * @param _charset el charset declarado del contenido, o null para usar UTF-8
+	 * @param _sitename el nombre del sitio
+	 */
+	public RedditParser(InputStream _stream, String _charset, String _sitename) {
+		stream = _stream;
+		charset = (_charset != null) ? Charset.forName(_charset) : StandardCharsets.UTF_8;
+		sitename = _sitename;
+	}
+
 	/**
 	 * Obtiene la fecha de publicación de un post.
 	 * @param post el post en formato JSON
@@ -70,9 +86,13 @@ public class RedditParser extends GeneralParser {
 	@Override
 	public Feed parseFeed() {
 		Feed feed = new Feed(sitename);
-		JSONArray posts = new JSONObject(new JSONTokener(stream))
-			.getJSONObject("data")
-			.getJSONArray("children");
+		JSONTokener tokener = new JSONTokener(new InputStreamReader(stream, charset));
+		JSONObject listing = new JSONObject(tokener);
+		// Se lee hasta el final del cuerpo: el cache solo guarda los que se leyeron enteros
+		if (tokener.nextClean() != 0) {
+			throw tokener.syntaxError("Unexpected content after the listing");
+		}
+		JSONArray posts = listing.getJSONObject("data").getJSONArray("children");
 		for (int i = 0; i < posts.length(); i++) {
 			JSONObject post = posts.getJSONObject(i).getJSONObject("data");
 			Article article = postToArticle(post);
@@ -3,210 +3,335 @@ package parser;
 import feed.Article;
 import feed.Feed;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 
-import org.w3c.dom.Document;
-import org.w3c.dom.NodeList;
-import org.w3c.dom.Node;
-import org.w3c.dom.Element;
-import org.xml.sax.SAXException;
-
-
-import java.io.IOException;
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.Date;
+import java.util.Deque;
 import java.util.Locale;
 
 /**
  * Esta clase implementa un parser de feeds que soporta tanto RSS como Atom.
  * Determina el formato del feed y extrae los artículos de manera robusta.
+ *
+ * El documento se recorre una sola vez con StAX, sin construir el árbol DOM: cada artículo
+ * se arma a medida que se leen sus etiquetas y se agrega al feed apenas se cierra.
+ * Para cada campo se toma, como antes, el texto completo de la primera etiqueta con ese
+ * nombre dentro del artículo (a cualquier profundidad).
  */
 public class RssParser extends GeneralParser {
+
+	// Etiquetas que se extraen de cada artículo; el índice es la posición en el arreglo
+	private static final String[] ARTICLE_TAGS = {
+		"title", "description", "content", "summary", "link", "guid", "pubDate", "published", "updated"
+	};
+	private static final int TITLE = 0;
+	private static final int DESCRIPTION = 1;
+	private static final int CONTENT = 2;
+	private static final int SUMMARY = 3;
+	private static final int LINK = 4;
+	private static final int GUID = 5;
+	private static final int[] DATE_TAGS = {6, 7, 8}; // pubDate, published, updated
+
+	private static final String[] DATE_FORMATS = {
+		"EEE, dd MMM yyyy HH:mm:ss Z",      // Formato RSS estándar
+		"yyyy-MM-dd'T'HH:mm:ss.SSS'Z'",   // Formato Atom con milisegundos
+		"yyyy-MM-dd'T'HH:mm:ss'Z'",        // Formato Atom sin milisegundos
+		"yyyy-MM-dd'T'HH:mm:ssXXX"        // Formato Atom con zona horaria
+	};
+
+	// XMLInputFactory no garantiza ser thread-safe: se reutiliza una configurada por hilo
+	private static final ThreadLocal<XMLInputFactory> factories = ThreadLocal.withInitial(RssParser::newFactory);
+
 	private final InputStream input;
-	private final Document xmldoc;
+	private final String encoding;
 	private final String initialSiteName;
 
 	public RssParser(InputStream input, String sitename) {
+		this(input, null, sitename);
+	}
+
+	/**
+	 * @param encoding charset declarado por el servidor; si es null se detecta del documento
+	 *                 (BOM o declaración XML)
+	 */
+	public RssParser(InputStream input, String encoding, String sitename) {
 		this.input = input;
+		this.encoding = encoding;
 		this.initialSiteName = sitename;
-		
-		try {
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			factory.setNamespaceAware(true); // Soporte para namespaces (Atom)
-			DocumentBuilder docBuilder = factory.newDocumentBuilder();
-			this.xmldoc = docBuilder.parse(this.input);
-			this.xmldoc.getDocumentElement().normalize();
-		} catch (ParserConfigurationException | SAXException | IOException e) {
-			// Lanza una excepción en caso de error crítico de parsing
-			throw new RuntimeException("Error parsing XML feed for: " + sitename, e);
-		}
+	}
+
+	private static XMLInputFactory newFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true); // Soporte para namespaces (Atom)
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		// Nunca se descargan DTDs externas: se resuelven como vacías
+		factory.setXMLResolver((publicID, systemID, baseURI, namespace) -> new ByteArrayInputStream(new byte[0]));
+		return factory;
 	}
 
 	@Override
 	public Feed parseFeed() {
 		Feed parsedFeed = new Feed(this.initialSiteName);
-		addSiteName(parsedFeed);
-		addArticles(parsedFeed);
+		XMLStreamReader reader = null;
+		try {
+			reader = (this.encoding != null)
+					? factories.get().createXMLStreamReader(this.input, this.encoding)
+					: factories.get().createXMLStreamReader(this.input);
+			parse(reader, parsedFeed);
+		} catch (XMLStreamException e) {
+			// Lanza una excepción en caso de error crítico de parsing
+			throw new RuntimeException("Error parsing XML feed for: " + this.initialSiteName, e);
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException e) { /* Ignorar error */ }
+			}
+		}
 		return parsedFeed;
 	}
 
 	/**
-	 * Extrae el nombre del sitio del feed, con fallback al nombre inicial.
+	 * Recorre el documento una vez. El título del sitio es el de la primera etiqueta title del
+	 * documento (<channel><title> para RSS y <feed><title> para Atom). Los artículos son los
+	 * <item> de RSS; solo si el documento no tiene ningún <item> se usan los <entry> de Atom.
 	 */
-	private void addSiteName(Feed feed) {
-		try {
-			// El título principal está en <channel><title> para RSS y <feed><title> para Atom.
-			NodeList siteNodeList = xmldoc.getElementsByTagName("title");
-			if (siteNodeList.getLength() > 0) {
-				Node siteNameNode = siteNodeList.item(0);
-				if (siteNameNode != null) {
-					String siteName = siteNameNode.getTextContent();
-					if (siteName != null && !siteName.trim().isEmpty()) {
-						feed.setSiteName(siteName.trim());
-						return; // Nombre encontrado y asignado
+	private void parse(XMLStreamReader reader, Feed feed) throws XMLStreamException {
+		Deque<ArticleState> openArticles = new ArrayDeque<ArticleState>();
+		StringBuilder siteTitle = null;
+		int siteTitleDepth = -1;
+		boolean sawItem = false;
+		int depth = 0;
+
+		while (reader.hasNext()) {
+			switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT: {
+					depth++;
+					String name = qualifiedName(reader);
+					if (siteTitle == null && name.equals("title")) {
+						siteTitle = new StringBuilder();
+						siteTitleDepth = depth;
+					}
+					for (ArticleState article : openArticles) {
+						article.startElement(name, reader, depth);
+					}
+					if (name.equals("item") || name.equals("entry")) {
+						openArticles.push(new ArticleState(name.equals("item"), depth));
+					}
+					break;
+				}
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+				case XMLStreamConstants.ENTITY_REFERENCE: {
+					if (siteTitleDepth > 0) {
+						siteTitle.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+					}
+					for (ArticleState article : openArticles) {
+						article.characters(reader);
+					}
+					break;
+				}
+				case XMLStreamConstants.END_ELEMENT: {
+					if (depth == siteTitleDepth) {
+						siteTitleDepth = -1;
+						String siteName = siteTitle.toString().trim();
+						if (!siteName.isEmpty()) {
+							feed.setSiteName(siteName);
+						}
+					}
+					for (ArticleState article : openArticles) {
+						article.endElement(depth);
+					}
+					if (!openArticles.isEmpty() && openArticles.peek().depth == depth) {
+						ArticleState finished = openArticles.pop();
+						if (finished.isItem && !sawItem) {
+							// Había <entry> pero el documento es RSS: los <item> tienen prioridad
+							sawItem = true;
+							feed.getArticleList().clear();
+						}
+						if (finished.isItem || !sawItem) {
+							Article article = finished.toArticle();
+							if (article != null) {
+								feed.addArticle(article);
+							}
+						}
 					}
+					depth--;
+					break;
 				}
+				default:
+					break;
 			}
-
-
-		} catch (Exception e) {
-			// Ignorar error y usar el fallback
 		}
-		// Fallback si no se encuentra el título en el XML
-		feed.setSiteName(this.initialSiteName);
 	}
-	
+
+	private static String qualifiedName(XMLStreamReader reader) {
+		String prefix = reader.getPrefix();
+		String local = reader.getLocalName();
+		return (prefix == null || prefix.isEmpty()) ? local : prefix + ":" + local;
+	}
+
 	/**
-	 * Extrae los artículos del feed, manejando tanto RSS (<item>) como Atom (<entry>).
+	 * Estado de un artículo abierto: el texto de la primera aparición de cada etiqueta de
+	 * ARTICLE_TAGS y el atributo href del primer <link> (Atom).
 	 */
-	private void addArticles(Feed feed) {
-		// Intenta con la etiqueta de artículo de RSS ("item") primero.
-		NodeList articleNodeList = xmldoc.getElementsByTagName("item");
-		
-		// Si no se encuentran "item", intenta con la etiqueta de Atom ("entry").
-		if (articleNodeList.getLength() == 0) {
-			articleNodeList = xmldoc.getElementsByTagName("entry");
+	private static class ArticleState {
+		final boolean isItem;
+		final int depth;
+		final String[] values = new String[ARTICLE_TAGS.length];
+		final StringBuilder[] captures = new StringBuilder[ARTICLE_TAGS.length];
+		final int[] captureDepths = new int[ARTICLE_TAGS.length];
+		final boolean[] seen = new boolean[ARTICLE_TAGS.length];
+		int activeCaptures = 0;
+		String linkHref;
+
+		ArticleState(boolean isItem, int depth) {
+			this.isItem = isItem;
+			this.depth = depth;
+		}
+
+		void startElement(String name, XMLStreamReader reader, int elementDepth) {
+			for (int tag = 0; tag < ARTICLE_TAGS.length; tag++) {
+				if (!seen[tag] && ARTICLE_TAGS[tag].equals(name)) {
+					seen[tag] = true;
+					captures[tag] = new StringBuilder();
+					captureDepths[tag] = elementDepth;
+					activeCaptures++;
+					if (tag == LINK) {
+						linkHref = hrefOf(reader);
+					}
+					return;
+				}
+			}
 		}
-		
-		for (int i = 0; i < articleNodeList.getLength(); i++) {
-			Node itemNode = articleNodeList.item(i);
 
-			if (itemNode.getNodeType() == Node.ELEMENT_NODE) {
-				Element articleElement = (Element) itemNode;
+		void characters(XMLStreamReader reader) {
+			if (activeCaptures == 0) {
+				return;
+			}
+			for (int tag = 0; tag < captures.length; tag++) {
+				if (captures[tag] != null) {
+					captures[tag].append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+				}
+			}
+		}
 
-				String title = getElementTextSafely(articleElement, "title");
-				if (title == null || title.trim().isEmpty()) {
-					continue; // Salta artículos sin título
+		void endElement(int elementDepth) {
+			if (activeCaptures == 0) {
+				return;
+			}
+			for (int tag = 0; tag < captures.length; tag++) {
+				if (captures[tag] != null && captureDepths[tag] == elementDepth) {
+					values[tag] = captures[tag].toString();
+					captures[tag] = null;
+					activeCaptures--;
 				}
-				
-				String content = getArticleContent(articleElement);
-				Date publicationDate = parsePublicationDate(articleElement);
-				String link = getArticleLink(articleElement);
+			}
+		}
 
-				Article newArticle = new Article(title, content, publicationDate, link);
-				feed.addArticle(newArticle);
+		private static String hrefOf(XMLStreamReader reader) {
+			for (int i = 0; i < reader.getAttributeCount(); i++) {
+				String prefix = reader.getAttributePrefix(i);
+				if ((prefix == null || prefix.isEmpty()) && reader.getAttributeLocalName(i).equals("href")) {
+					return reader.getAttributeValue(i);
+				}
 			}
+			return null;
 		}
-	}
 
-	/**
-	 * Extrae el contenido del artículo, probando varias etiquetas comunes.
-	 */
-	private String getArticleContent(Element parent) {
-		String content = getElementTextSafely(parent, "description"); // RSS
-		if (content == null) {
-			content = getElementTextSafely(parent, "content"); // Atom
+		/**
+		 * Arma el artículo; devuelve null si no tiene título.
+		 */
+		Article toArticle() {
+			String title = text(TITLE);
+			if (title == null) {
+				return null; // Salta artículos sin título
+			}
+			return new Article(title, getArticleContent(), parsePublicationDate(), getArticleLink());
 		}
-		if (content == null) {
-			content = getElementTextSafely(parent, "summary"); // Atom (alternativo)
+
+		/**
+		 * Extrae el contenido del artículo, probando varias etiquetas comunes.
+		 */
+		private String getArticleContent() {
+			String content = text(DESCRIPTION); // RSS
+			if (content == null) {
+				content = text(CONTENT); // Atom
+			}
+			if (content == null) {
+				content = text(SUMMARY); // Atom (alternativo)
+			}
+			return (content != null) ? content : ""; // Devuelve vacío si no se encuentra
 		}
-		return (content != null) ? content : ""; // Devuelve vacío si no se encuentra
-	}
 
-	/**
-	 * Extrae el link del artículo, manejando el formato de RSS y Atom.
-	 */
-	private String getArticleLink(Element parent) {
-		String link = getElementTextSafely(parent, "link"); // Intenta leer el texto del link (RSS)
-		
-		if (link == null || link.isEmpty()) {
-			// Si falla, intenta leer el atributo 'href' del link (Atom)
-			try {
-				NodeList linkNodes = parent.getElementsByTagName("link");
-				if (linkNodes.getLength() > 0 && linkNodes.item(0).hasAttributes()) {
-					Node hrefAttr = linkNodes.item(0).getAttributes().getNamedItem("href");
-					if (hrefAttr != null) {
-						link = hrefAttr.getNodeValue();
-					}
+		/**
+		 * Extrae el link del artículo, manejando el formato de RSS y Atom.
+		 */
+		private String getArticleLink() {
+			String link = text(LINK); // Intenta leer el texto del link (RSS)
+
+			if (link == null || link.isEmpty()) {
+				// Si falla, usa el atributo 'href' del link (Atom)
+				if (linkHref != null) {
+					link = linkHref;
 				}
-			} catch (Exception e) { /* Ignorar error */ }
-		}
-		
-		if (link == null || link.isEmpty()) {
-			link = getElementTextSafely(parent, "guid"); // Fallback a guid
+			}
+
+			if (link == null || link.isEmpty()) {
+				link = text(GUID); // Fallback a guid
+			}
+
+			return (link != null) ? link : "";
 		}
-		
-		return (link != null) ? link : "";
-	}
-	
-	/**
-	 * Parsea la fecha de publicación buscando en etiquetas de RSS y Atom.
-	 */
-	private Date parsePublicationDate(Element articleElement) {
-		String[] dateTags = {"pubDate", "published", "updated"};
-		String[] dateFormats = {
-			"EEE, dd MMM yyyy HH:mm:ss Z",      // Formato RSS estándar
-			"yyyy-MM-dd'T'HH:mm:ss.SSS'Z'",   // Formato Atom con milisegundos
-			"yyyy-MM-dd'T'HH:mm:ss'Z'",        // Formato Atom sin milisegundos
-			"yyyy-MM-dd'T'HH:mm:ssXXX"        // Formato Atom con zona horaria
-		};
-
-		for (String tag : dateTags) {
-			String dateString = getElementTextSafely(articleElement, tag);
-			if (dateString != null) {
-				for (String format : dateFormats) {
-					Date date = parseDate(dateString, format);
-					if (date != null) {
-						return date;
+
+		/**
+		 * Parsea la fecha de publicación buscando en etiquetas de RSS y Atom.
+		 */
+		private Date parsePublicationDate() {
+			for (int tag : DATE_TAGS) {
+				String dateString = text(tag);
+				if (dateString != null) {
+					for (String format : DATE_FORMATS) {
+						Date date = parseDate(dateString, format);
+						if (date != null) {
+							return date;
+						}
 					}
 				}
 			}
+
+			return new Date(); // Fallback a la fecha actual si no se encuentra/parsea
 		}
 
-		return new Date(); // Fallback a la fecha actual si no se encuentra/parsea
+		/**
+		 * Devuelve el texto de la etiqueta sin espacios alrededor, o null si no existe o está vacío.
+		 */
+		private String text(int tag) {
+			String content = values[tag];
+			return (content != null && !content.trim().isEmpty()) ? content.trim() : null;
+		}
 	}
 
 	/**
 	 * Parsea una fecha con un formato específico de forma segura.
 	 */
-	private Date parseDate(String dateString, String format) {
+	private static Date parseDate(String dateString, String format) {
 		try {
 			return new SimpleDateFormat(format, Locale.ENGLISH).parse(dateString);
 		} catch (ParseException e) {
 			return null; // Devuelve null si el formato no coincide
 		}
 	}
-	
-	/**
-	 * Extrae texto de un elemento de forma segura, devolviendo null si no existe.
-	 */
-	private String getElementTextSafely(Element parent, String tagName) {
-		try {
-			NodeList nodes = parent.getElementsByTagName(tagName);
-			if (nodes.getLength() > 0 && nodes.item(0) != null) {
-				String content = nodes.item(0).getTextContent();
-				return (content != null && !content.trim().isEmpty()) ? content.trim() : null;
-			}
-		} catch (Exception e) {
-			// Ignorar errores y devolver null
-		}
-		return null;
-	}
-}
\ No newline at end of file
+}
@@ -18,6 +18,8 @@ import subscription.Subscription;
  */
 public class SubscriptionParser {
 
+	public static final String DEFAULT_FILE = "./config/subscriptions.json";
+
 	private FileReader subscriptionFile;
 
 	/**
@@ -31,6 +33,16 @@ public class SubscriptionParser {
 		subscriptionFile = new FileReader(fullPath);
 	}
 
+	/**
+	 * Crea el parser para el archivo indicado por la propiedad feedreader.subscriptions
+	 * (por defecto ./config/subscriptions.json).
+	 *
+	 * @throws FileNotFoundException Si el archivo no se encuentra en la ruta especificada.
+	 */
+	public static SubscriptionParser fromSystemProperties() throws FileNotFoundException {
+		return new SubscriptionParser(System.getProperty("feedreader.subscriptions", DEFAULT_FILE));
+	}
+
 	/**
 	 * Parsea el archivo JSON y lo convierte en un JSONArray.
 	 *